@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# Build an AppCDS (dynamic class-data-sharing) archive for the lite launcher.
+#
+#   mvn -Plite package -DskipTests && scripts/lite-cds.sh
+#   java -XX:SharedArchiveFile=target/xo-lite.jsa -jar target/xo-backend-*-lite.jar
+#
+# The training run starts the server, plays create/join/start/move/sync over two real sockets so the
+# WebSocket, Jackson and game classes get loaded, then stops it; the JVM dumps the archive at exit.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+source scripts/ws-probe.sh
+
+JAR=$(ls target/xo-backend-*-lite.jar 2>/dev/null | head -1)
+[[ -n $JAR ]] || { echo "lite jar not found; run: mvn -Plite package -DskipTests" >&2; exit 1; }
+ARCHIVE=${ARCHIVE:-target/xo-lite.jsa}
+PORT=${PORT:-18081}
+
+rm -f "$ARCHIVE"
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -jar "$JAR" --websocket.port="$PORT" --websocket.snapshot.path= &
+PID=$!
+trap 'kill $PID 2>/dev/null || true' EXIT
+
+for _ in $(seq 1 200); do ws_handshake "$PORT" 3 && break; sleep 0.05; done
+ws_send_text '{"type":"create","playerId":"cds-a","name":"a"}' 3
+GAME_ID=$(ws_drain 3 | grep -ao '"gameId":"[A-Z0-9]*"' | head -1 | cut -d'"' -f4)
+
+ws_handshake "$PORT" 4
+ws_send_text '{"type":"lobby_subscribe","limit":10}' 4
+ws_send_text "{\"type\":\"join\",\"gameId\":\"$GAME_ID\",\"playerId\":\"cds-b\",\"name\":\"b\"}" 4
+ws_drain 4 >/dev/null
+ws_send_text "{\"type\":\"start\",\"gameId\":\"$GAME_ID\",\"playerId\":\"cds-a\"}" 3
+ws_drain 3 >/dev/null
+ws_send_text "{\"type\":\"move\",\"gameId\":\"$GAME_ID\",\"playerId\":\"cds-a\",\"x\":1,\"y\":1}" 3
+ws_send_text "{\"type\":\"sync\",\"gameId\":\"$GAME_ID\",\"playerId\":\"cds-b\"}" 4
+ws_drain 4 >/dev/null
+ws_close 4
+ws_close 3
+
+kill -TERM $PID
+wait $PID || true
+trap - EXIT
+ls -l "$ARCHIVE"
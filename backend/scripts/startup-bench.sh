@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# Startup benchmark: time from process spawn to the first accepted WebSocket connection, and idle RSS.
+#
+#   mvn package -DskipTests && mvn -Plite package -DskipTests && scripts/lite-cds.sh
+#   scripts/startup-bench.sh [runs]
+#
+# Modes: spring (full Spring Boot jar), lite (LiteLauncher jar), lite+cds (with target/xo-lite.jsa, if built).
+set -euo pipefail
+cd "$(dirname "$0")/.."
+source scripts/ws-probe.sh
+
+RUNS=${1:-5}
+PORT=${PORT:-18081}
+HTTP_PORT=${HTTP_PORT:-18080}
+IDLE_SECONDS=${IDLE_SECONDS:-3}
+JVM_OPTS=${JVM_OPTS:-}
+
+SPRING_JAR=$(ls target/xo-backend-*.jar 2>/dev/null | grep -v -- '-lite.jar' | head -1 || true)
+LITE_JAR=$(ls target/xo-backend-*-lite.jar 2>/dev/null | head -1 || true)
+ARCHIVE=target/xo-lite.jsa
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+# run_once <cmd...>: prints "<ms-to-first-connection> <idle-rss-kb>"
+run_once() {
+    local start pid ms rss
+    start=$(now_ms)
+    "$@" >/dev/null 2>&1 &
+    pid=$!
+    until ws_handshake "$PORT" 3; do
+        kill -0 $pid 2>/dev/null || { echo "process exited before accepting" >&2; return 1; }
+        sleep 0.005
+    done
+    ms=$(( $(now_ms) - start ))
+    ws_close 3
+    sleep "$IDLE_SECONDS"
+    rss=$(rss_kb $pid)
+    kill -TERM $pid
+    wait $pid 2>/dev/null || true
+    echo "$ms $rss"
+}
+
+bench() {
+    local name=$1; shift
+    local total_ms=0 total_rss=0 best_ms=999999 out ms rss
+    for _ in $(seq 1 "$RUNS"); do
+        out=$(run_once "$@")
+        read -r ms rss <<<"$out"
+        total_ms=$((total_ms + ms)); total_rss=$((total_rss + rss))
+        (( ms < best_ms )) && best_ms=$ms
+    done
+    printf '%-10s %10d %10d %14d\n' "$name" $((total_ms / RUNS)) "$best_ms" $((total_rss / RUNS / 1024))
+}
+
+printf '%-10s %10s %10s %14s\n' mode avg_ms best_ms idle_rss_mb
+COMMON=(--websocket.port="$PORT" --websocket.snapshot.path=)
+if [[ -n $SPRING_JAR ]]; then
+    bench spring java $JVM_OPTS -jar "$SPRING_JAR" "${COMMON[@]}" --server.port="$HTTP_PORT"
+fi
+if [[ -n $LITE_JAR ]]; then
+    bench lite java $JVM_OPTS -jar "$LITE_JAR" "${COMMON[@]}"
+    if [[ -f $ARCHIVE ]]; then
+        bench lite+cds java $JVM_OPTS -XX:SharedArchiveFile="$ARCHIVE" -jar "$LITE_JAR" "${COMMON[@]}"
+    fi
+fi
@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Shared helpers for the startup scripts: a dependency-free WebSocket client over bash /dev/tcp.
+# Source this file; do not run it directly. Each helper takes the file descriptor to use (default 3).
+
+WS_HOST=${WS_HOST:-127.0.0.1}
+
+# ws_handshake <port> [fd]: succeeds once the server answers the upgrade with 101. Leaves the socket open on fd.
+ws_handshake() {
+    local fd=${2:-3} status
+    eval "exec $fd<>/dev/tcp/$WS_HOST/$1" 2>/dev/null || return 1
+    printf 'GET / HTTP/1.1\r\nHost: %s:%s\r\nUpgrade: websocket\r\nConnection: Upgrade\r\nSec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n\r\n' "$WS_HOST" "$1" >&"$fd"
+    if ! read -r -t 2 status <&"$fd" || [[ $status != *" 101 "* ]]; then
+        eval "exec $fd>&-"
+        return 1
+    fi
+}
+
+# ws_send_text <json> [fd]: send one client text frame (payload < 126 bytes, all-zero mask).
+ws_send_text() {
+    local fd=${2:-3} len=${#1}
+    printf "\\x81\\x$(printf '%02x' $((0x80 | len)))\\x00\\x00\\x00\\x00%s" "$1" >&"$fd"
+}
+
+# ws_drain [fd]: print whatever the server sent within half a second (raw frames, text payloads readable).
+ws_drain() {
+    timeout 0.5 cat <&"${1:-3}" || true
+}
+
+ws_close() {
+    eval "exec ${1:-3}>&-"
+}
+
+# rss_kb <pid>: resident set size in kB.
+rss_kb() {
+    awk '/^VmRSS:/ {print $2}' "/proc/$1/status"
+}
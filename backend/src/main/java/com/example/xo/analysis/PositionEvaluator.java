@@ -0,0 +1,212 @@
+package com.example.xo.analysis;
+
+import com.example.xo.model.GameState;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * perfect-play evaluation of 3x3 positions in the layout of Game.getBoardAsArray() (index x + y * 3,
+ * cells "X", "O" or " ").
+ *
+ * a board is encoded base 3 (one digit per cell) and reduced to the smallest code among its 8 rotations
+ * and reflections, so the 5478 legal positions collapse to under a thousand solved ones. results live in
+ * a memo shared by all threads and requests, filled on first use by a minimax that goes through the same
+ * memo for every child. entries are deterministic, so two threads racing on one only repeat work. once
+ * warm, an evaluation is a validation plus one array read.
+ *
+ * thread-safe.
+ */
+public class PositionEvaluator {
+    public static final int CELLS = 9;
+    static final int CODES = 19683; // 3^9
+
+    private static final int EMPTY = 0;
+    private static final int X = 1;
+    private static final int O = 2;
+
+    private static final int[] POW3 = {1, 3, 9, 27, 81, 243, 729, 2187, 6561};
+    private static final int[][] LINES = {
+            {0, 1, 2}, {3, 4, 5}, {6, 7, 8},
+            {0, 3, 6}, {1, 4, 7}, {2, 5, 8},
+            {0, 4, 8}, {2, 4, 6}
+    };
+
+    // the 8 symmetries of the square as cell permutations: cell i moves to SYM[t][i]
+    private static final int[][] SYM = new int[8][CELLS];
+    // per board code: smallest code among its symmetries, the symmetry giving it, and who has a line (bit X/O)
+    private static final int[] CANON = new int[CODES];
+    private static final byte[] CANON_SYM = new byte[CODES];
+    private static final byte[] LINES_OF = new byte[CODES];
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            int x = i % 3, y = i / 3;
+            int[][] images = {
+                    {x, y}, {2 - y, x}, {2 - x, 2 - y}, {y, 2 - x},
+                    {2 - x, y}, {x, 2 - y}, {y, x}, {2 - y, 2 - x}
+            };
+            for (int t = 0; t < 8; t++) SYM[t][i] = images[t][0] + images[t][1] * 3;
+        }
+        int[] digits = new int[CELLS];
+        for (int code = 0; code < CODES; code++) {
+            for (int i = 0, c = code; i < CELLS; i++, c /= 3) digits[i] = c % 3;
+            int best = Integer.MAX_VALUE;
+            for (int t = 0; t < 8; t++) {
+                int image = 0;
+                for (int i = 0; i < CELLS; i++) image += digits[i] * POW3[SYM[t][i]];
+                if (image < best) {
+                    best = image;
+                    CANON_SYM[code] = (byte) t;
+                }
+            }
+            CANON[code] = best;
+            int lines = 0;
+            for (int[] l : LINES) {
+                int d = digits[l[0]];
+                if (d != EMPTY && d == digits[l[1]] && d == digits[l[2]]) lines |= d;
+            }
+            LINES_OF[code] = (byte) lines;
+        }
+    }
+
+    // memo entry: FOUND | (score + 1) << 1 | plies << 3 | (best cell + 1) << 7, key = canonical code * 2 + mover
+    private static final int FOUND = 1;
+    private final AtomicIntegerArray memo = new AtomicIntegerArray(CODES * 2);
+
+    /**
+     * result for the side to move: score 1 = forced win, 0 = draw, -1 = forced loss; plies until the game
+     * ends under best play (winner fastest, loser slowest); best is the cell to play, or -1 when the
+     * position is already over.
+     */
+    public static final class Evaluation {
+        public final char toMove;
+        public final int score;
+        public final int plies;
+        public final int best;
+
+        Evaluation(char toMove, int score, int plies, int best) {
+            this.toMove = toMove;
+            this.score = score;
+            this.plies = plies;
+            this.best = best;
+        }
+
+        /**
+         * outcome under best play, named like the final game states.
+         */
+        public GameState outcome() {
+            if (score == 0) return GameState.DRAW;
+            boolean xWins = (score > 0) == (toMove == 'X');
+            return xWins ? GameState.X_WON : GameState.O_WON;
+        }
+    }
+
+    /**
+     * evaluate one position. toMove ("X"/"O") is only needed when both marks have been played equally
+     * often, since either mark may open a match; it defaults to X. throws illegalargumentexception for
+     * malformed or unreachable positions.
+     */
+    public Evaluation evaluate(String[] board, String toMove) {
+        if (board == null || board.length != CELLS) throw new IllegalArgumentException("board must have 9 cells");
+        int code = 0, xs = 0, os = 0;
+        for (int i = 0; i < CELLS; i++) {
+            int d = cell(board[i]);
+            if (d == X) xs++;
+            else if (d == O) os++;
+            code += d * POW3[i];
+        }
+
+        int mover;
+        if (xs == os) mover = toMove == null ? X : mark(toMove);
+        else if (xs == os + 1) mover = O;
+        else if (os == xs + 1) mover = X;
+        else throw new IllegalArgumentException("mark counts differ by more than one");
+        if (toMove != null && mark(toMove) != mover) throw new IllegalArgumentException("toMove does not match the board");
+
+        int lines = LINES_OF[code];
+        if (lines == (X | O)) throw new IllegalArgumentException("both marks have a line");
+        char moverMark = mover == X ? 'X' : 'O';
+        if (lines != 0) {
+            // only the player who just moved can have completed a line
+            if (lines == mover) throw new IllegalArgumentException("side to move already has a line");
+            return new Evaluation(moverMark, -1, 0, -1);
+        }
+        if (xs + os == CELLS) return new Evaluation(moverMark, 0, 0, -1);
+
+        int entry = solve(code, mover);
+        int best = ((entry >>> 7) & 0xF) - 1;
+        return new Evaluation(moverMark, ((entry >>> 1) & 0x3) - 1, (entry >>> 3) & 0xF, original(code, best));
+    }
+
+    // memo entry of a non-final position; its best cell is in the canonical board's coordinates
+    private int solve(int code, int mover) {
+        int canon = CANON[code];
+        int key = canon * 2 + (mover - 1);
+        int entry = memo.get(key);
+        if (entry == 0) {
+            entry = search(canon, mover);
+            memo.lazySet(key, entry);
+        }
+        return entry;
+    }
+
+    private int search(int code, int mover) {
+        int other = mover == X ? O : X;
+        int bestRank = Integer.MIN_VALUE, bestScore = 0, bestPlies = 0, bestCell = -1;
+        for (int c = 0; c < CELLS; c++) {
+            if ((code / POW3[c]) % 3 != EMPTY) continue;
+            int child = code + mover * POW3[c];
+            int score, plies;
+            if (LINES_OF[child] != 0) {
+                score = 1;
+                plies = 1;
+            } else if (isFull(child)) {
+                score = 0;
+                plies = 1;
+            } else {
+                int reply = solve(child, other);
+                score = -(((reply >>> 1) & 0x3) - 1);
+                plies = ((reply >>> 3) & 0xF) + 1;
+            }
+            // prefer wins, fastest first; then draws; then losses, slowest first
+            int rank = score > 0 ? 100 - plies : score < 0 ? plies - 100 : 0;
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestScore = score;
+                bestPlies = plies;
+                bestCell = c;
+            }
+        }
+        return FOUND | (bestScore + 1) << 1 | bestPlies << 3 | (bestCell + 1) << 7;
+    }
+
+    // map a cell of code's canonical board back to code's own orientation
+    private static int original(int code, int canonicalCell) {
+        if (canonicalCell < 0) return -1;
+        int[] perm = SYM[CANON_SYM[code]];
+        for (int i = 0; i < CELLS; i++) {
+            if (perm[i] == canonicalCell) return i;
+        }
+        throw new IllegalStateException("bad symmetry table");
+    }
+
+    private static boolean isFull(int code) {
+        for (int c = 0; c < CELLS; c++, code /= 3) {
+            if (code % 3 == EMPTY) return false;
+        }
+        return true;
+    }
+
+    private static int cell(String s) {
+        if (s == null || s.isEmpty() || " ".equals(s)) return EMPTY;
+        if ("X".equals(s)) return X;
+        if ("O".equals(s)) return O;
+        throw new IllegalArgumentException("cell must be \"X\", \"O\" or \" \"");
+    }
+
+    private static int mark(String s) {
+        if ("X".equals(s)) return X;
+        if ("O".equals(s)) return O;
+        throw new IllegalArgumentException("toMove must be \"X\" or \"O\"");
+    }
+}
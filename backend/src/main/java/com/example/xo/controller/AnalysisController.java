@@ -0,0 +1,187 @@
+package com.example.xo.controller;
+
+import com.example.xo.analysis.PositionEvaluator;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+/**
+ * bulk perfect-play evaluation for training and analysis tools.
+ *
+ * the body is a json array of positions, each either a board (9 cells as in game state messages) or
+ * {"board": [...], "toMove": "O"}. it is read incrementally: each chunk is evaluated in parallel on the
+ * common fork-join pool and its results are written and flushed before the next chunk is read, so
+ * memory stays flat however long the stream is. results come back in input order, one object per
+ * position with its index; a bad position gets an error object and does not stop the stream.
+ */
+@RestController
+@RequestMapping("/api/analysis")
+public class AnalysisController {
+
+    private static final int CHUNK = 4096;
+    // below this a chunk is cheaper to evaluate on the request thread than to fork
+    private static final int PARALLEL_MIN = 256;
+
+    private final JsonFactory json = new JsonFactory();
+    private final PositionEvaluator evaluator = new PositionEvaluator();
+
+    @PostMapping(value = "/evaluate", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void evaluate(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (JsonParser in = json.createParser(request.getInputStream())) {
+            JsonToken first;
+            try {
+                first = in.nextToken();
+            } catch (JsonProcessingException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "malformed json");
+            }
+            if (first != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "expected a json array of positions");
+            }
+
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            try (JsonGenerator out = json.createGenerator(response.getOutputStream())) {
+                out.writeStartArray();
+                Item[] chunk = new Item[CHUNK];
+                int index = 0;
+                boolean more = true;
+                while (more) {
+                    int n = 0;
+                    try {
+                        while (n < CHUNK) {
+                            JsonToken t = in.nextToken();
+                            if (t == JsonToken.END_ARRAY || t == null) {
+                                more = false;
+                                break;
+                            }
+                            chunk[n] = read(in, index);
+                            n++;
+                            index++;
+                        }
+                    } catch (JsonProcessingException e) {
+                        // the status is already sent; finish what was read and end with an error entry
+                        more = false;
+                        evaluateAll(chunk, n);
+                        for (int i = 0; i < n; i++) write(out, chunk[i]);
+                        out.writeStartObject();
+                        out.writeStringField("error", "malformed json after " + index + " positions");
+                        out.writeEndObject();
+                        break;
+                    }
+                    evaluateAll(chunk, n);
+                    for (int i = 0; i < n; i++) write(out, chunk[i]);
+                    out.flush();
+                }
+                out.writeEndArray();
+            }
+        }
+    }
+
+    private void evaluateAll(Item[] chunk, int n) {
+        IntStream range = IntStream.range(0, n);
+        if (n >= PARALLEL_MIN) range = range.parallel();
+        range.forEach(i -> chunk[i].evaluate(evaluator));
+    }
+
+    // one array element; the parser is on its first token
+    private static Item read(JsonParser in, int index) throws IOException {
+        Item item = new Item(index);
+        JsonToken t = in.currentToken();
+        if (t == JsonToken.START_ARRAY) {
+            item.board = readBoard(in);
+        } else if (t == JsonToken.START_OBJECT) {
+            while (in.nextToken() == JsonToken.FIELD_NAME) {
+                String field = in.currentName();
+                JsonToken value = in.nextToken();
+                if ("board".equals(field) && value == JsonToken.START_ARRAY) {
+                    item.board = readBoard(in);
+                } else if ("toMove".equals(field) && value == JsonToken.VALUE_STRING) {
+                    item.toMove = in.getText();
+                } else {
+                    in.skipChildren();
+                }
+            }
+        } else {
+            in.skipChildren();
+        }
+        if (item.board == null) item.error = "expected a board array or {\"board\": [...]}";
+        return item;
+    }
+
+    // cells of a board array; null if it is not an array of 9 strings
+    private static String[] readBoard(JsonParser in) throws IOException {
+        String[] cells = new String[PositionEvaluator.CELLS];
+        int n = 0;
+        boolean ok = true;
+        JsonToken t;
+        while ((t = in.nextToken()) != JsonToken.END_ARRAY) {
+            if (t == null) throw new JsonParseException(in, "unexpected end of input");
+            if (t == JsonToken.START_ARRAY || t == JsonToken.START_OBJECT) {
+                in.skipChildren();
+                ok = false;
+            } else if (n < cells.length && (t == JsonToken.VALUE_STRING || t == JsonToken.VALUE_NULL)) {
+                cells[n++] = in.getValueAsString();
+            } else {
+                ok = false;
+            }
+        }
+        return ok && n == cells.length ? cells : null;
+    }
+
+    private static void write(JsonGenerator out, Item item) throws IOException {
+        out.writeStartObject();
+        out.writeNumberField("index", item.index);
+        if (item.error != null) {
+            out.writeStringField("error", item.error);
+        } else {
+            PositionEvaluator.Evaluation e = item.result;
+            out.writeStringField("toMove", e.toMove == 'X' ? "X" : "O");
+            out.writeNumberField("score", e.score);
+            out.writeStringField("outcome", e.outcome().name());
+            out.writeNumberField("plies", e.plies);
+            if (e.best >= 0) {
+                out.writeObjectFieldStart("move");
+                out.writeNumberField("x", e.best % 3);
+                out.writeNumberField("y", e.best / 3);
+                out.writeEndObject();
+            } else {
+                out.writeNullField("move");
+            }
+        }
+        out.writeEndObject();
+    }
+
+    private static final class Item {
+        final int index;
+        String[] board;
+        String toMove;
+        PositionEvaluator.Evaluation result;
+        String error;
+
+        Item(int index) {
+            this.index = index;
+        }
+
+        void evaluate(PositionEvaluator evaluator) {
+            if (error != null) return;
+            try {
+                result = evaluator.evaluate(board, toMove);
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+        }
+    }
+}
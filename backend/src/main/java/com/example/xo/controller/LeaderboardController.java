@@ -0,0 +1,34 @@
+package com.example.xo.controller;
+
+import com.example.xo.websocket.StandaloneGameWebSocketServer;
+import com.example.xo.websocket.WebSocketServerStarter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * rest view of the rating leaderboard; same payload as the websocket leaderboard message.
+ */
+@RestController
+@RequestMapping("/api/leaderboard")
+public class LeaderboardController {
+
+    private final WebSocketServerStarter starter;
+
+    public LeaderboardController(WebSocketServerStarter starter) {
+        this.starter = starter;
+    }
+
+    @GetMapping
+    public Map<String, Object> leaderboard(@RequestParam(defaultValue = "10") int limit,
+                                           @RequestParam(required = false) String playerId) {
+        StandaloneGameWebSocketServer server = starter.getServer();
+        if (server == null) throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "websocket server not running");
+        return server.buildLeaderboard("leaderboard", limit, playerId);
+    }
+}
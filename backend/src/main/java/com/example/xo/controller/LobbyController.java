@@ -0,0 +1,40 @@
+package com.example.xo.controller;
+
+import com.example.xo.lobby.LobbyIndex;
+import com.example.xo.websocket.StandaloneGameWebSocketServer;
+import com.example.xo.websocket.WebSocketServerStarter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * rest listing of open rooms, paginated by creation-time cursor.
+ */
+@RestController
+@RequestMapping("/api/lobby")
+public class LobbyController {
+
+    private final WebSocketServerStarter starter;
+
+    public LobbyController(WebSocketServerStarter starter) {
+        this.starter = starter;
+    }
+
+    @GetMapping("/rooms")
+    public Map<String, Object> rooms(@RequestParam(required = false) String cursor,
+                                     @RequestParam(defaultValue = "50") int limit) {
+        StandaloneGameWebSocketServer server = starter.getServer();
+        if (server == null) throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "websocket server not running");
+        LobbyIndex lobby = server.getLobby();
+        try {
+            return server.buildLobbyPage("lobby_page", lobby.page(cursor, limit), limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.xo.controller;
+
+import com.example.xo.websocket.StandaloneGameWebSocketServer;
+import com.example.xo.websocket.WebSocketServerStarter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * live game analytics: outcomes, openings, match lengths and throughput windows.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final WebSocketServerStarter starter;
+
+    public StatsController(WebSocketServerStarter starter) {
+        this.starter = starter;
+    }
+
+    @GetMapping
+    public Map<String, Object> stats() {
+        StandaloneGameWebSocketServer server = starter.getServer();
+        if (server == null) throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "websocket server not running");
+        return server.getStats().toMap();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.xo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * one room broadcast: serializing the message once and queueing it to every peer (compression
+ * included when deflate is negotiated).
+ */
+@Name(BroadcastEvent.NAME)
+@Label("Broadcast")
+@Category({"XO", "WebSocket"})
+@Description("Message serialized once and fanned out to the peers of a room")
+@StackTrace(false)
+public class BroadcastEvent extends jdk.jfr.Event {
+    public static final String NAME = "xo.Broadcast";
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Message Type")
+    public String messageType;
+
+    @Label("Peers")
+    public int peers;
+
+    @Label("Sent")
+    public int sent;
+
+    @Label("Payload Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,98 @@
+package com.example.xo.jfr;
+
+import com.example.xo.websocket.ServerSettings;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * optional always-on flight recording started by the server itself, so the lite launcher and the
+ * spring app need no jvm flags.
+ *
+ * settings are the jdk "default" profile (gc, locks, safepoints, ...) plus the bundled xo.jfc, with the
+ * xo event thresholds taken from {@code websocket.jfr.*-threshold-ms}. the recording keeps the last
+ * {@code websocket.jfr.max-age-minutes} in the jfr repository and is written to
+ * {@code websocket.jfr.dump-path} when the server stops or the jvm exits.
+ */
+public final class FlightRecording {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecording.class);
+
+    private static final String PREFIX = "websocket.jfr.";
+    public static final String PROFILE = "/xo.jfc";
+
+    private FlightRecording() {
+    }
+
+    /**
+     * start the recording if {@code websocket.jfr.enabled}; returns null when disabled or unavailable.
+     */
+    public static Recording start(ServerSettings settings) {
+        if (!settings.getBoolean(PREFIX + "enabled", false)) return null;
+        try {
+            Map<String, String> merged = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            merged.putAll(profile().getSettings());
+            threshold(merged, settings, MessageEvent.NAME, "message-threshold-ms");
+            threshold(merged, settings, MoveEvent.NAME, "move-threshold-ms");
+            threshold(merged, settings, BroadcastEvent.NAME, "broadcast-threshold-ms");
+
+            Recording recording = new Recording(merged);
+            recording.setName("xo");
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMinutes(settings.getLong(PREFIX + "max-age-minutes", 30)));
+            String dump = settings.getString(PREFIX + "dump-path", "");
+            if (!dump.isBlank()) {
+                recording.setDestination(Path.of(dump));
+                recording.setDumpOnExit(true);
+            }
+            recording.start();
+            log.info("Flight recording started (max age {} min, dump to {})", recording.getMaxAge().toMinutes(),
+                    dump.isBlank() ? "-" : dump);
+            return recording;
+        } catch (Exception | LinkageError e) {
+            log.warn("Could not start flight recording: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * stop the recording; writes it to the dump path when one is set.
+     */
+    public static void stop(Recording recording) {
+        // jfr's own exit hook may have stopped (and dumped) it already
+        if (recording == null || recording.getState() != RecordingState.RUNNING) return;
+        try {
+            recording.stop();
+            if (recording.getDestination() != null) log.info("Flight recording written to {}", recording.getDestination());
+        } catch (Exception e) {
+            log.warn("Could not stop flight recording: {}", e.toString());
+        } finally {
+            recording.close();
+        }
+    }
+
+    private static Configuration profile() throws Exception {
+        try (InputStream in = FlightRecording.class.getResourceAsStream(PROFILE)) {
+            if (in == null) throw new IllegalStateException(PROFILE + " not on the classpath");
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            }
+        }
+    }
+
+    private static void threshold(Map<String, String> merged, ServerSettings settings, String event, String key) {
+        long millis = settings.getLong(PREFIX + key, -1);
+        if (millis >= 0) merged.put(event + "#threshold", millis + " ms");
+    }
+}
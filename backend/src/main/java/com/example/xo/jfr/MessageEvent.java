@@ -0,0 +1,44 @@
+package com.example.xo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * one inbound websocket frame, from parse to the end of its handler. a batch frame is one event
+ * covering all of its commands.
+ */
+@Name(MessageEvent.NAME)
+@Label("Message")
+@Category({"XO", "WebSocket"})
+@Description("Inbound frame parsed and handled on a decoder thread")
+@StackTrace(false)
+public class MessageEvent extends jdk.jfr.Event {
+    public static final String NAME = "xo.Message";
+
+    @Label("Type")
+    public String type;
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Commands")
+    @Description("Commands in a batch frame, 1 otherwise")
+    public int commands;
+
+    @Label("Frame Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseTime;
+
+    @Label("Handle Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long handleTime;
+}
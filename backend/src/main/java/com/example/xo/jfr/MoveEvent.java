@@ -0,0 +1,42 @@
+package com.example.xo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * one Game.applyMove call. the duration is the time spent holding the game's monitor, listener
+ * callbacks included.
+ */
+@Name(MoveEvent.NAME)
+@Label("Apply Move")
+@Category({"XO", "Game"})
+@Description("Move validated and applied under the game lock")
+@StackTrace(false)
+public class MoveEvent extends jdk.jfr.Event {
+    public static final String NAME = "xo.Move";
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Player Id")
+    public String playerId;
+
+    @Label("X")
+    public int x;
+
+    @Label("Y")
+    public int y;
+
+    @Label("Move Number")
+    public int moveNumber;
+
+    @Label("Accepted")
+    public boolean accepted;
+
+    @Label("Result")
+    @Description("Game state after the move, or why it was rejected")
+    public String result;
+}
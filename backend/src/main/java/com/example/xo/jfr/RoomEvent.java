@@ -0,0 +1,55 @@
+package com.example.xo.jfr;
+
+import com.example.xo.model.Game;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * a room created, restored from a snapshot or evicted.
+ */
+@Name(RoomEvent.NAME)
+@Label("Room")
+@Category({"XO", "Game"})
+@Description("Room created, restored or evicted")
+@StackTrace(false)
+public class RoomEvent extends jdk.jfr.Event {
+    public static final String NAME = "xo.Room";
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Action")
+    public String action;
+
+    @Label("Reason")
+    public String reason;
+
+    @Label("Players")
+    public int players;
+
+    @Label("Moves")
+    public int moves;
+
+    @Label("State")
+    public String state;
+
+    /**
+     * record an instant room event; cheap when the event is disabled.
+     */
+    public static void emit(String action, Game game, String reason) {
+        RoomEvent event = new RoomEvent();
+        if (!event.isEnabled()) return;
+        event.gameId = game.getId();
+        event.action = action;
+        event.reason = reason;
+        synchronized (game) {
+            event.players = game.getPlayers().size();
+            event.moves = game.getMoves().size();
+            event.state = game.getState() != null ? game.getState().name() : null;
+        }
+        event.commit();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.xo.launcher;
+
+import com.example.xo.websocket.GameServerLifecycle;
+import com.example.xo.websocket.ServerSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * spring-free entry point that boots only the standalone websocket server.
+ *
+ * reads application.properties directly, in the same precedence spring boot uses for the sources
+ * supported here: classpath file, then ./application.properties, then -D system properties, then
+ * --key=value arguments. rest endpoints are not available in this mode.
+ * built as target/xo-backend-*-lite.jar by the "lite" maven profile.
+ */
+public final class LiteLauncher {
+
+    static {
+        // must run before the first logger is created; spring boot's own logging setup is not present here
+        if (System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", "logback-lite.xml");
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(LiteLauncher.class);
+
+    private LiteLauncher() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Properties props = loadProperties(args);
+        GameServerLifecycle lifecycle = new GameServerLifecycle(new ServerSettings(props::getProperty));
+        Runtime.getRuntime().addShutdownHook(new Thread(lifecycle::stop, "xo-shutdown"));
+        lifecycle.start();
+        log.info("Lite launcher started in {} ms (since jvm start)", ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    static Properties loadProperties(String[] args) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = LiteLauncher.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (in != null) props.load(in);
+        }
+
+        Path local = Path.of("application.properties");
+        if (Files.isRegularFile(local)) {
+            try (Reader r = Files.newBufferedReader(local)) {
+                props.load(r);
+            }
+        }
+
+        // only override known keys (and our own namespace), not every jvm property
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (props.containsKey(name) || name.startsWith("websocket.")) {
+                props.setProperty(name, System.getProperty(name));
+            }
+        }
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 3) {
+                throw new IllegalArgumentException("Expected --key=value argument, got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            props.setProperty(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return props;
+    }
+}
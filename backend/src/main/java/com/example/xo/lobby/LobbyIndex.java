@@ -0,0 +1,165 @@
+package com.example.xo.lobby;
+
+import com.example.xo.model.Game;
+import com.example.xo.model.GameListener;
+import com.example.xo.model.GameState;
+import com.example.xo.model.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * concurrently maintained index of open (joinable) rooms ordered by creation time.
+ *
+ * games report every membership/state change through {@link GameListener}, so the index never
+ * scans the full game map: a page is a skip-list tail walk and a change is a single put/remove.
+ * changes are also coalesced per room until the server drains them for the lobby feed.
+ */
+public class LobbyIndex implements GameListener {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private final ConcurrentSkipListMap<Key, LobbyRoom> open = new ConcurrentSkipListMap<>();
+    private final AtomicInteger openCount = new AtomicInteger();
+
+    // gameid -> latest change not yet pushed to lobby subscribers (null room means closed)
+    private final Map<String, Change> pending = new ConcurrentHashMap<>();
+
+    /**
+     * a room is open while it waits for a second player.
+     */
+    public static boolean isOpen(Game game) {
+        return game.getState() == GameState.WAITING && game.getPlayers().size() < 2;
+    }
+
+    @Override
+    public void onStateChanged(Game game) {
+        // runs under the game's monitor, so state and players are consistent here
+        if (isOpen(game)) {
+            LobbyRoom room = toRoom(game);
+            if (open.put(new Key(game.getCreatedAt(), game.getId()), room) == null) {
+                openCount.incrementAndGet();
+            }
+            pending.put(game.getId(), new Change(game.getId(), room));
+        } else {
+            remove(game);
+        }
+    }
+
+    /**
+     * drop a room from the index, e.g. when the server evicts the game.
+     */
+    public void remove(Game game) {
+        if (open.remove(new Key(game.getCreatedAt(), game.getId())) != null) {
+            openCount.decrementAndGet();
+            pending.put(game.getId(), new Change(game.getId(), null));
+        }
+    }
+
+    public int size() {
+        return openCount.get();
+    }
+
+    /**
+     * list up to limit open rooms created after the given cursor (null for the first page).
+     */
+    public List<LobbyRoom> page(String cursor, int limit) {
+        int n = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        NavigableMap<Key, LobbyRoom> view = open;
+        Key after = Key.parse(cursor);
+        if (after != null) view = open.tailMap(after, false);
+
+        List<LobbyRoom> out = new ArrayList<>(n);
+        for (LobbyRoom room : view.values()) {
+            out.add(room);
+            if (out.size() >= n) break;
+        }
+        return out;
+    }
+
+    /**
+     * remove and return the coalesced changes since the previous call, as lobby feed entries.
+     */
+    public List<Map<String, Object>> drainChanges() {
+        if (pending.isEmpty()) return List.of();
+        List<Map<String, Object>> out = new ArrayList<>();
+        Iterator<Map.Entry<String, Change>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Change> e = it.next();
+            // only remove the exact value we read so a concurrent newer change is kept for next drain
+            if (pending.remove(e.getKey(), e.getValue())) {
+                out.add(e.getValue().toMap());
+            }
+        }
+        return out;
+    }
+
+    private static LobbyRoom toRoom(Game game) {
+        Player host = game.getPlayerX() != null ? game.getPlayerX() : game.getPlayerO();
+        return new LobbyRoom(game.getId(), game.getCreatedAt(),
+                host != null ? host.getId() : null,
+                host != null ? host.getName() : null);
+    }
+
+    private static final class Change {
+        final String gameId;
+        final LobbyRoom room;
+
+        Change(String gameId, LobbyRoom room) {
+            this.gameId = gameId;
+            this.room = room;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new HashMap<>();
+            m.put("op", room != null ? "open" : "closed");
+            m.put("gameId", gameId);
+            if (room != null) m.put("room", room.toMap());
+            return m;
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        final long createdAt;
+        final String gameId;
+
+        Key(long createdAt, String gameId) {
+            this.createdAt = createdAt;
+            this.gameId = gameId;
+        }
+
+        static Key parse(String cursor) {
+            if (cursor == null || cursor.isBlank()) return null;
+            int sep = cursor.indexOf(':');
+            if (sep <= 0) throw new IllegalArgumentException("invalid cursor");
+            try {
+                return new Key(Long.parseLong(cursor.substring(0, sep)), cursor.substring(sep + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid cursor");
+            }
+        }
+
+        @Override
+        public int compareTo(Key o) {
+            int c = Long.compare(createdAt, o.createdAt);
+            return c != 0 ? c : gameId.compareTo(o.gameId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(createdAt) * 31 + gameId.hashCode();
+        }
+    }
+}
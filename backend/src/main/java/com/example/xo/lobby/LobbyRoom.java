@@ -0,0 +1,37 @@
+package com.example.xo.lobby;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * immutable view of a joinable room as listed in the lobby.
+ */
+public class LobbyRoom {
+    public final String gameId;
+    public final long createdAt;
+    public final String hostId;
+    public final String hostName;
+
+    public LobbyRoom(String gameId, long createdAt, String hostId, String hostName) {
+        this.gameId = gameId;
+        this.createdAt = createdAt;
+        this.hostId = hostId;
+        this.hostName = hostName;
+    }
+
+    /**
+     * opaque pagination cursor; rooms are listed strictly after the cursor they were given.
+     */
+    public String cursor() {
+        return createdAt + ":" + gameId;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("gameId", gameId);
+        m.put("createdAt", createdAt);
+        m.put("hostId", hostId);
+        m.put("hostName", hostName);
+        return m;
+    }
+}
@@ -1,9 +1,12 @@
 // ...existing code...
 package com.example.xo.model;
 
+import com.example.xo.jfr.MoveEvent;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.util.*;
 
@@ -30,11 +33,35 @@ public class Game {
     // convenience map for lookup
     private final Map<String, Player> players = new HashMap<>();
 
+    // creation time in epoch millis, used to order the open-room lobby
+    private long createdAt;
+
+    // turn clock of the running match (null = untimed). remaining budgets exclude the turn in
+    // progress, which started at turnStartedAt (epoch millis) and is charged to the player to move.
+    private TimeControl timeControl;
+    private long remainingX;
+    private long remainingO;
+    private long turnStartedAt;
+
+    // optional observer for membership/state changes (lobby index etc.)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private GameListener listener;
+
     public Game(String id) {
         this.id = id;
+        this.createdAt = System.currentTimeMillis();
         Arrays.fill(board, ' ');
     }
 
+    /**
+     * set the state and notify the listener. the server uses this when starting a match.
+     */
+    public synchronized void setState(GameState state) {
+        this.state = state;
+        fireStateChanged();
+    }
+
     /**
      * add a player to the game. assigns mark "x" or "o" and sets first player's turn.
      */
@@ -66,6 +93,7 @@ public class Game {
         } else {
             this.state = GameState.WAITING;
         }
+        fireStateChanged();
     }
 
     /**
@@ -76,6 +104,9 @@ public class Game {
         Player removed = players.remove(playerId);
         if (removed == null) return;
 
+        // a seat emptied mid-match stops the clock; the next start sets a new one
+        if (removed.getMark() != null) timeControl = null;
+
         // clear references if they were the X or O player
         if (playerX != null && playerX.getId().equals(playerId)) {
             playerX = null;
@@ -103,14 +134,42 @@ public class Game {
         } else {
             this.state = GameState.WAITING;
         }
+        fireStateChanged();
     }
 
     /**
      * apply move to the board. validates bounds, turn and occupancy.
      * returns a moveresult describing winner/draw/nextturn.
      * throws illegalargumentexception on invalid move.
+     * recorded as an xo.move flight recorder event when enabled.
      */
     public synchronized MoveResult applyMove(Move m) {
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        String rejected = null;
+        try {
+            return place(m);
+        } catch (IllegalArgumentException e) {
+            rejected = e.getMessage();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.gameId = id;
+                if (m != null) {
+                    event.playerId = m.getPlayerId();
+                    event.x = m.getX();
+                    event.y = m.getY();
+                }
+                event.moveNumber = moves.size();
+                event.accepted = rejected == null;
+                event.result = rejected != null ? rejected : state != null ? state.name() : null;
+                event.commit();
+            }
+        }
+    }
+
+    private MoveResult place(Move m) {
         if (m == null) throw new IllegalArgumentException("move required");
         Player p = players.get(m.getPlayerId());
         if (p == null || p.getMark() == null) {
@@ -126,6 +185,11 @@ public class Game {
         if (board[idx] != ' ') {
             throw new IllegalArgumentException("cell occupied");
         }
+        if (isClockRunning()) {
+            // the timer may not have fired yet; a late move never counts
+            if (m.getTimestamp() >= turnDeadline()) throw new IllegalArgumentException("out of time");
+            chargeTurn(p.getMark(), m.getTimestamp(), timeControl.incrementMillis);
+        }
 
     // apply
         board[idx] = p.getMark().charAt(0);
@@ -161,19 +225,89 @@ public class Game {
             }
         }
 
+        fireStateChanged();
+        fireMoveApplied(m);
+        if (winner != null || draw) fireMatchFinished();
         return new MoveResult(winner, draw, nextTurn);
     }
 
+    /**
+     * end the running match in favour of the given player's opponent.
+     * returns the winning mark, or null if no match is in progress or the player holds no mark.
+     */
+    public synchronized Character forfeit(String playerId) {
+        Player p = players.get(playerId);
+        if (state != GameState.IN_PROGRESS || p == null || p.getMark() == null) return null;
+        char winner = "X".equals(p.getMark()) ? 'O' : 'X';
+        this.state = winner == 'X' ? GameState.X_WON : GameState.O_WON;
+        this.currentTurnPlayerId = null;
+        fireStateChanged();
+        fireMatchFinished();
+        return winner;
+    }
+
+    /**
+     * start the clock for the match that just began (null = untimed).
+     * the player to move is charged from now.
+     */
+    public synchronized void startClock(TimeControl tc, long now) {
+        this.timeControl = tc;
+        long initial = tc != null ? tc.initialMillis : 0;
+        this.remainingX = initial;
+        this.remainingO = initial;
+        this.turnStartedAt = now;
+    }
+
+    /**
+     * true while a timed match is in progress and someone is to move.
+     */
+    public synchronized boolean isClockRunning() {
+        return timeControl != null && state == GameState.IN_PROGRESS && markOf(currentTurnPlayerId) != null;
+    }
+
+    /**
+     * epoch millis at which the player to move runs out of time, or long.max_value if no clock runs.
+     */
+    public synchronized long turnDeadline() {
+        if (!isClockRunning()) return Long.MAX_VALUE;
+        String mark = markOf(currentTurnPlayerId);
+        long allowance = timeControl.hasMoveBudget() ? timeControl.moveMillis : Long.MAX_VALUE;
+        if (timeControl.hasGameBudget()) allowance = Math.min(allowance, budgetOf(mark));
+        return turnStartedAt + allowance;
+    }
+
+    /**
+     * game budget left for the given mark at now, counting the running turn against the player to move.
+     */
+    public synchronized long remainingMillis(String mark, long now) {
+        long left = budgetOf(mark);
+        if (isClockRunning() && mark.equals(markOf(currentTurnPlayerId))) left -= now - turnStartedAt;
+        return Math.max(0, left);
+    }
+
+    /**
+     * flag the player to move if their time is up at now. returns the winning mark, or null when no
+     * clock runs or time remains (a move landed first and the deadline moved).
+     */
+    public synchronized Character timeOut(long now) {
+        if (!isClockRunning() || now < turnDeadline()) return null;
+        String flagged = currentTurnPlayerId;
+        chargeTurn(markOf(flagged), now, 0);
+        return forfeit(flagged);
+    }
+
     /**
      * reset the board and moves for a new match while keeping players assigned.
      */
     public synchronized void resetForNewMatch() {
         this.moves.clear();
         Arrays.fill(board, ' ');
+        this.timeControl = null;
     // clear any transient match-specific state
     // currentturnplayerid will be set by the server when the match starts
         this.currentTurnPlayerId = null;
         this.state = GameState.WAITING;
+        fireStateChanged();
     }
 
     public synchronized String[] getBoardAsArray() {
@@ -182,6 +316,37 @@ public class Game {
         return arr;
     }
 
+    // deduct the running turn from mark's game budget, add the increment and start the next turn at now
+    private void chargeTurn(String mark, long now, long increment) {
+        if (timeControl.hasGameBudget()) {
+            long left = Math.max(0, budgetOf(mark) - (now - turnStartedAt)) + increment;
+            if ("X".equals(mark)) remainingX = left;
+            else remainingO = left;
+        }
+        turnStartedAt = now;
+    }
+
+    private long budgetOf(String mark) {
+        return "X".equals(mark) ? remainingX : remainingO;
+    }
+
+    private String markOf(String playerId) {
+        Player p = playerId != null ? players.get(playerId) : null;
+        return p != null ? p.getMark() : null;
+    }
+
+    private void fireStateChanged() {
+        if (listener != null) listener.onStateChanged(this);
+    }
+
+    private void fireMoveApplied(Move m) {
+        if (listener != null) listener.onMoveApplied(this, m);
+    }
+
+    private void fireMatchFinished() {
+        if (listener != null) listener.onMatchFinished(this);
+    }
+
     private Character checkWinner() {
         int[][] lines = {
             {0,1,2},{3,4,5},{6,7,8},
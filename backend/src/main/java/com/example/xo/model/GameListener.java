@@ -0,0 +1,26 @@
+package com.example.xo.model;
+
+/**
+ * callback notified by a game after its membership or state changes.
+ * methods run while the game's monitor is held, so implementations must be quick and must not block.
+ */
+public interface GameListener {
+
+    /**
+     * called after addplayer, removeplayer, resetfornewmatch, applymove or setstate.
+     */
+    void onStateChanged(Game game);
+
+    /**
+     * called after applymove placed a valid move, before onmatchfinished if the move ended the match.
+     */
+    default void onMoveApplied(Game game, Move move) {
+    }
+
+    /**
+     * called once when a running match ends by a winning line, a draw or a forfeit (including
+     * timeouts), after onstatechanged. the state is then x_won, o_won or draw.
+     */
+    default void onMatchFinished(Game game) {
+    }
+}
@@ -2,6 +2,7 @@ package com.example.xo.model;
 
 /**
  * Enum representing the state of a game.
+ * GameSnapshot stores states by ordinal: append new constants, never reorder or remove them.
  */
 public enum GameState {
     WAITING,
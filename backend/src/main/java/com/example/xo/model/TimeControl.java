@@ -0,0 +1,61 @@
+package com.example.xo.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * immutable clock settings for one match.
+ * initialMillis is each player's budget for the whole match (0 = none), incrementMillis is added to
+ * it after every move, and moveMillis caps a single turn (0 = none). at least one budget is set.
+ */
+public class TimeControl {
+    public static final long MAX_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    public final long initialMillis;
+    public final long incrementMillis;
+    public final long moveMillis;
+
+    private TimeControl(long initialMillis, long incrementMillis, long moveMillis) {
+        this.initialMillis = initialMillis;
+        this.incrementMillis = incrementMillis;
+        this.moveMillis = moveMillis;
+    }
+
+    /**
+     * validated time control, or null when both budgets are 0 (untimed match).
+     * throws illegalargumentexception on negative or out-of-range values.
+     */
+    public static TimeControl of(long initialMillis, long incrementMillis, long moveMillis) {
+        check("initial", initialMillis);
+        check("increment", incrementMillis);
+        check("move", moveMillis);
+        if (initialMillis == 0 && moveMillis == 0) {
+            if (incrementMillis != 0) throw new IllegalArgumentException("increment requires an initial budget");
+            return null;
+        }
+        return new TimeControl(initialMillis, incrementMillis, moveMillis);
+    }
+
+    private static void check(String name, long millis) {
+        if (millis < 0 || millis > MAX_MILLIS) {
+            throw new IllegalArgumentException(name + " time out of range: " + millis + " ms");
+        }
+    }
+
+    public boolean hasGameBudget() {
+        return initialMillis > 0;
+    }
+
+    public boolean hasMoveBudget() {
+        return moveMillis > 0;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("initialMillis", initialMillis);
+        m.put("incrementMillis", incrementMillis);
+        m.put("moveMillis", moveMillis);
+        return m;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.xo.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * token-bucket budget (rate per second, burst size) evaluated as a generic cell rate algorithm.
+ *
+ * the whole bucket state is one long, the theoretical arrival time (tat) of the next token, so
+ * acquiring is a single cas with no lock and no allocation. a request is admitted while the tat is
+ * at most (burst - 1) intervals ahead of now.
+ */
+public final class Budget {
+
+    private static final long EPOCH = System.nanoTime();
+
+    public final double ratePerSecond;
+    public final int burst;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    public Budget(double ratePerSecond, int burst) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.intervalNanos = ratePerSecond > 0 ? (long) (1_000_000_000L / ratePerSecond) : 0;
+        this.toleranceNanos = intervalNanos * (this.burst - 1);
+    }
+
+    /**
+     * monotonic clock that starts at zero, so a freshly zeroed bucket is full.
+     */
+    public static long now() {
+        return System.nanoTime() - EPOCH;
+    }
+
+    public boolean isUnlimited() {
+        return intervalNanos <= 0;
+    }
+
+    public boolean tryAcquire(AtomicLong tat, long now) {
+        if (isUnlimited()) return true;
+        for (;;) {
+            long cur = tat.get();
+            long t = Math.max(cur, now);
+            if (t - now > toleranceNanos) return false;
+            if (tat.compareAndSet(cur, t + intervalNanos)) return true;
+        }
+    }
+
+    public boolean tryAcquire(AtomicLongArray tats, int i, long now) {
+        if (isUnlimited()) return true;
+        for (;;) {
+            long cur = tats.get(i);
+            long t = Math.max(cur, now);
+            if (t - now > toleranceNanos) return false;
+            if (tats.compareAndSet(i, cur, t + intervalNanos)) return true;
+        }
+    }
+
+    /**
+     * nanos until the next token is available (0 when one is available now).
+     */
+    public long waitNanos(long tat, long now) {
+        if (isUnlimited()) return 0;
+        return Math.max(0, Math.max(tat, now) - now - toleranceNanos);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.xo.ratelimit;
+
+/**
+ * per-connection budget classes. frame is charged for every inbound frame before parsing,
+ * the message kinds after parsing, and invalid for frames that fail to parse.
+ * join and sync allow a burst of 16, the default room limit, so one batch can reconnect and sync every room.
+ */
+public enum MessageKind {
+    FRAME("frame", 30, 60),
+    CREATE("create", 0.2, 5),
+    JOIN("join", 2, 16),
+    SYNC("sync", 5, 16),
+    MOVE("move", 10, 20),
+    OTHER("other", 5, 10),
+    INVALID("invalid", 1, 5);
+
+    public final String key;
+    public final double defaultRate;
+    public final int defaultBurst;
+
+    MessageKind(String key, double defaultRate, int defaultBurst) {
+        this.key = key;
+        this.defaultRate = defaultRate;
+        this.defaultBurst = defaultBurst;
+    }
+
+    public static MessageKind of(String type) {
+        switch (type) {
+            case "create": return CREATE;
+            case "join":
+            case "reconnect": return JOIN;
+            case "sync": return SYNC;
+            case "move": return MOVE;
+            default: return OTHER;
+        }
+    }
+}
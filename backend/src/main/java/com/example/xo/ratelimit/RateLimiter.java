@@ -0,0 +1,118 @@
+package com.example.xo.ratelimit;
+
+import com.example.xo.websocket.ServerSettings;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * lock-free flood protection: per-connection budgets per message kind, per-ip budgets for frames
+ * and new connections, and a strike budget that escalates repeated offenders to a disconnect.
+ *
+ * budgets are read from {@code websocket.ratelimit.<name>.rate} (tokens per second) and
+ * {@code websocket.ratelimit.<name>.burst}; a rate of 0 disables that budget.
+ */
+public class RateLimiter {
+
+    private static final String PREFIX = "websocket.ratelimit.";
+
+    private static final int IP_FRAME = 0;
+    private static final int IP_CONNECT = 1;
+
+    private final boolean enabled;
+    private final Budget[] kinds = new Budget[MessageKind.values().length];
+    private final Budget strikes;
+    private final Budget notices;
+    private final Budget ipFrames;
+    private final Budget ipConnects;
+
+    private final Map<InetAddress, AtomicLongArray> perIp = new ConcurrentHashMap<>();
+
+    public RateLimiter(ServerSettings settings) {
+        this.enabled = settings.getBoolean(PREFIX + "enabled", true);
+        for (MessageKind k : MessageKind.values()) {
+            kinds[k.ordinal()] = budget(settings, k.key, k.defaultRate, k.defaultBurst);
+        }
+        this.strikes = budget(settings, "strikes", 1, 20);
+        this.notices = new Budget(1, 1);
+        this.ipFrames = budget(settings, "ip-frame", 200, 400);
+        this.ipConnects = budget(settings, "ip-connect", 5, 20);
+    }
+
+    private static Budget budget(ServerSettings s, String name, double rate, int burst) {
+        return new Budget(s.getDouble(PREFIX + name + ".rate", rate), s.getInt(PREFIX + name + ".burst", burst));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * charge a new tcp connection from the given address; false means refuse it.
+     */
+    public boolean allowConnect(InetAddress ip) {
+        if (!enabled || ip == null) return true;
+        return ipConnects.tryAcquire(ipSlots(ip), IP_CONNECT, Budget.now());
+    }
+
+    public ConnectionLimits forConnection(InetAddress ip) {
+        return new ConnectionLimits(ip);
+    }
+
+    /**
+     * drop per-ip state that has fully refilled; such an entry is indistinguishable from a new one.
+     */
+    public int sweepIdle() {
+        long now = Budget.now();
+        int before = perIp.size();
+        perIp.values().removeIf(s -> s.get(IP_FRAME) <= now && s.get(IP_CONNECT) <= now);
+        return before - perIp.size();
+    }
+
+    private AtomicLongArray ipSlots(InetAddress ip) {
+        return perIp.computeIfAbsent(ip, k -> new AtomicLongArray(2));
+    }
+
+    /**
+     * budgets of a single connection; safe to call from any thread.
+     */
+    public final class ConnectionLimits {
+        private final AtomicLongArray tats = new AtomicLongArray(MessageKind.values().length + 2);
+        // resolved per frame rather than cached so a sweep never splits one ip across two buckets
+        private final InetAddress ip;
+
+        private ConnectionLimits(InetAddress ip) {
+            this.ip = ip;
+        }
+
+        /**
+         * charge one message of the given kind; frames are charged to the source ip as well.
+         */
+        public boolean tryAcquire(MessageKind kind) {
+            if (!enabled) return true;
+            long now = Budget.now();
+            if (!kinds[kind.ordinal()].tryAcquire(tats, kind.ordinal(), now)) return false;
+            return kind != MessageKind.FRAME || ip == null || ipFrames.tryAcquire(ipSlots(ip), IP_FRAME, now);
+        }
+
+        /**
+         * record a violation; false once the strike budget is exhausted and the client should be dropped.
+         */
+        public boolean strike() {
+            return strikes.tryAcquire(tats, tats.length() - 2, Budget.now());
+        }
+
+        /**
+         * whether the client should be told about a rejection; limits error replies to one per second.
+         */
+        public boolean shouldNotify() {
+            return notices.tryAcquire(tats, tats.length() - 1, Budget.now());
+        }
+
+        public long retryAfterMillis(MessageKind kind) {
+            return kinds[kind.ordinal()].waitNanos(tats.get(kind.ordinal()), Budget.now()) / 1_000_000L;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.xo.rating;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * concurrent rating index answering top-k and rank-of-player in logarithmic time.
+ *
+ * rows sit in a skip list ordered by rating (highest first) then player id, so top-k is a walk over
+ * the first k entries. a skip list cannot count the players above a given one without a scan, so a
+ * fenwick tree of player counts per rounded rating point answers rank in o(log range). players with
+ * the same rounded rating share a rank.
+ *
+ * there is a single writer (the rating updater thread) and readers never lock. a reader racing an
+ * update may see a player at the old or the new rating, or briefly miss them in top-k.
+ */
+public class Leaderboard {
+    public static final int MAX_TOP = 100;
+
+    // ratings are clamped to [0, MAX_POINTS) for ranking only
+    static final int MAX_POINTS = 4096;
+
+    private static final Comparator<Rating> ORDER =
+            Comparator.comparingDouble((Rating r) -> -r.rating).thenComparing(r -> r.playerId);
+
+    private final Map<String, Rating> byPlayer = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Rating> sorted = new ConcurrentSkipListSet<>(ORDER);
+    private final AtomicIntegerArray tree = new AtomicIntegerArray(MAX_POINTS + 1); // 1-based
+    private final AtomicInteger count = new AtomicInteger();
+
+    public Rating get(String playerId) {
+        return playerId != null ? byPlayer.get(playerId) : null;
+    }
+
+    public int size() {
+        return count.get();
+    }
+
+    /**
+     * the best players, at most limit (clamped to 1..max_top).
+     */
+    public List<Rating> top(int limit) {
+        int n = Math.max(1, Math.min(limit, MAX_TOP));
+        List<Rating> out = new ArrayList<>(n);
+        Iterator<Rating> it = sorted.iterator();
+        while (out.size() < n && it.hasNext()) out.add(it.next());
+        return out;
+    }
+
+    /**
+     * 1 + the number of players with a higher rounded rating.
+     */
+    public int rank(Rating r) {
+        int atMost = prefix(point(r.rating) + 1);
+        return Math.max(1, count.get() - atMost + 1);
+    }
+
+    /**
+     * replace a player's row. only the rating updater thread calls this.
+     */
+    void put(Rating next) {
+        Rating prev = byPlayer.put(next.playerId, next);
+        if (prev != null) {
+            sorted.remove(prev);
+            add(point(prev.rating) + 1, -1);
+        }
+        sorted.add(next);
+        add(point(next.rating) + 1, 1);
+        if (prev == null) count.incrementAndGet();
+    }
+
+    private static int point(double rating) {
+        return (int) Math.max(0, Math.min(MAX_POINTS - 1, Math.round(rating)));
+    }
+
+    private void add(int i, int delta) {
+        for (; i <= MAX_POINTS; i += i & -i) tree.addAndGet(i, delta);
+    }
+
+    // players in points [0, i - 1]
+    private int prefix(int i) {
+        int sum = 0;
+        for (; i > 0; i -= i & -i) sum += tree.get(i);
+        return sum;
+    }
+}
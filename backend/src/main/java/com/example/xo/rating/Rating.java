@@ -0,0 +1,50 @@
+package com.example.xo.rating;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * immutable rating record of one player. a new instance replaces the old one after every rated match,
+ * so readers always see a consistent row.
+ */
+public class Rating {
+    public final String playerId;
+    public final String name;
+    public final double rating;
+    public final int wins;
+    public final int losses;
+    public final int draws;
+
+    public Rating(String playerId, String name, double rating, int wins, int losses, int draws) {
+        this.playerId = playerId;
+        this.name = name;
+        this.rating = rating;
+        this.wins = wins;
+        this.losses = losses;
+        this.draws = draws;
+    }
+
+    public int games() {
+        return wins + losses + draws;
+    }
+
+    /**
+     * copy with a new rating and one more result; score is 1 for a win, 0.5 for a draw, 0 for a loss.
+     */
+    Rating after(String newName, double newRating, double score) {
+        return new Rating(playerId, newName != null ? newName : name, newRating,
+                wins + (score == 1 ? 1 : 0), losses + (score == 0 ? 1 : 0), draws + (score == 0.5 ? 1 : 0));
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("playerId", playerId);
+        m.put("name", name);
+        m.put("rating", Math.round(rating));
+        m.put("games", games());
+        m.put("wins", wins);
+        m.put("losses", losses);
+        m.put("draws", draws);
+        return m;
+    }
+}
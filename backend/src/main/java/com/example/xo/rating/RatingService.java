@@ -0,0 +1,138 @@
+package com.example.xo.rating;
+
+import com.example.xo.model.Game;
+import com.example.xo.model.GameState;
+import com.example.xo.model.Player;
+import com.example.xo.websocket.ServerSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * elo ratings updated from finished matches.
+ *
+ * submit() runs under the game monitor on the move path, so it only copies both seats into a queue.
+ * one updater thread drains the queue in batches and is the only writer of the leaderboard. a full
+ * queue drops the result (logged) instead of stalling a game.
+ *
+ * settings: {@code websocket.rating.initial}, {@code .k-factor}, {@code .provisional-games} (k is
+ * doubled for a player's first games so new players converge quickly) and {@code .queue-capacity}.
+ */
+public class RatingService {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingService.class);
+
+    private static final String PREFIX = "websocket.rating.";
+    private static final int MAX_BATCH = 1024;
+
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final BlockingQueue<Result> queue;
+    private final double initial;
+    private final double kFactor;
+    private final int provisionalGames;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public RatingService(ServerSettings settings) {
+        this.initial = settings.getDouble(PREFIX + "initial", 1200);
+        this.kFactor = settings.getDouble(PREFIX + "k-factor", 24);
+        this.provisionalGames = settings.getInt(PREFIX + "provisional-games", 10);
+        this.queue = new ArrayBlockingQueue<>(settings.getInt(PREFIX + "queue-capacity", 65536));
+        this.worker = new Thread(this::run, "xo-ratings");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * queue the result of a finished match. call while holding the game's monitor.
+     */
+    public void submit(Game game) {
+        Player x = game.getPlayerX();
+        Player o = game.getPlayerO();
+        if (x == null || o == null) return;
+
+        double scoreX;
+        if (game.getState() == GameState.X_WON) scoreX = 1;
+        else if (game.getState() == GameState.O_WON) scoreX = 0;
+        else if (game.getState() == GameState.DRAW) scoreX = 0.5;
+        else return;
+
+        if (!queue.offer(new Result(x.getId(), x.getName(), o.getId(), o.getName(), scoreX))) {
+            log.warn("Rating queue full, dropping result of game {}", game.getId());
+        }
+    }
+
+    /**
+     * results queued but not yet applied.
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * stop the updater after applying whatever is already queued.
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Result> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            applyAll(batch);
+        }
+        queue.drainTo(batch);
+        applyAll(batch);
+    }
+
+    private void applyAll(List<Result> batch) {
+        for (Result r : batch) {
+            try {
+                apply(r);
+            } catch (RuntimeException e) {
+                log.warn("Failed to rate {} vs {}: {}", r.xId, r.oId, e.getMessage(), e);
+            }
+        }
+        batch.clear();
+    }
+
+    private void apply(Result r) {
+        Rating x = current(r.xId, r.xName);
+        Rating o = current(r.oId, r.oName);
+        double expectedX = 1 / (1 + Math.pow(10, (o.rating - x.rating) / 400));
+        leaderboard.put(x.after(r.xName, x.rating + k(x) * (r.scoreX - expectedX), r.scoreX));
+        leaderboard.put(o.after(r.oName, o.rating + k(o) * (expectedX - r.scoreX), 1 - r.scoreX));
+    }
+
+    private Rating current(String playerId, String name) {
+        Rating r = leaderboard.get(playerId);
+        return r != null ? r : new Rating(playerId, name, initial, 0, 0, 0);
+    }
+
+    private double k(Rating r) {
+        return r.games() < provisionalGames ? 2 * kFactor : kFactor;
+    }
+
+    private record Result(String xId, String xName, String oId, String oName, double scoreX) {
+    }
+}
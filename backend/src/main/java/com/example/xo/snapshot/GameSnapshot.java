@@ -0,0 +1,180 @@
+package com.example.xo.snapshot;
+
+import com.example.xo.model.Game;
+import com.example.xo.model.GameState;
+import com.example.xo.model.Move;
+import com.example.xo.model.Player;
+import com.example.xo.model.TimeControl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+
+/**
+ * compact binary snapshot of live games, written on graceful shutdown and read back before the
+ * websocket port opens so players can reconnect to the same game id after a restart.
+ *
+ * layout: magic, version, then one record per game prefixed by a 1 byte, a 0 byte and the record
+ * count as trailer. a record holds id, creation time, state, the 9 board cells, current turn, the
+ * x/o seats, every player (id, name, mark, session id), the move list and (since version 2) the turn
+ * clock. seats, not sockets, are persisted: all players come back disconnected and get the usual
+ * reconnect grace period. the clock stores the running turn as elapsed time, so downtime is not charged.
+ */
+public final class GameSnapshot {
+
+    private static final int MAGIC = 0x584F5331; // "XOS1"
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private GameSnapshot() {
+    }
+
+    /**
+     * write games to path atomically (temp file + rename). each game is copied under its own monitor.
+     */
+    public static int write(Path path, Iterable<Game> games) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        int count = 0;
+        long now = System.currentTimeMillis();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            for (Game game : games) {
+                synchronized (game) {
+                    out.writeByte(1);
+                    writeGame(out, game, now);
+                }
+                count++;
+            }
+            out.writeByte(0);
+            out.writeInt(count);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * read every game from path and hand it to sink. throws ioexception on a truncated or foreign file.
+     */
+    public static int read(Path path, Consumer<Game> sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a game snapshot: " + path);
+            int version = in.readUnsignedShort();
+            if (version < 1 || version > VERSION) throw new IOException("unsupported snapshot version " + version);
+
+            int count = 0;
+            long now = System.currentTimeMillis();
+            while (in.readByte() == 1) {
+                sink.accept(readGame(in, version, now));
+                count++;
+            }
+            int expected = in.readInt();
+            if (expected != count) throw new IOException("snapshot truncated: expected " + expected + " games, read " + count);
+            return count;
+        }
+    }
+
+    private static void writeGame(DataOutputStream out, Game game, long now) throws IOException {
+        out.writeUTF(game.getId());
+        out.writeLong(game.getCreatedAt());
+        // by ordinal: GameState's constant order is part of the format
+        out.writeByte(game.getState() != null ? game.getState().ordinal() : -1);
+        for (char c : game.getBoard()) out.writeByte(c);
+        writeNullable(out, game.getCurrentTurnPlayerId());
+        writeNullable(out, game.getPlayerX() != null ? game.getPlayerX().getId() : null);
+        writeNullable(out, game.getPlayerO() != null ? game.getPlayerO().getId() : null);
+
+        out.writeByte(game.getPlayers().size());
+        for (Player p : game.getPlayers().values()) {
+            out.writeUTF(p.getId());
+            writeNullable(out, p.getName());
+            writeNullable(out, p.getMark());
+            writeNullable(out, p.getSessionId());
+        }
+
+        out.writeByte(game.getMoves().size());
+        for (Move m : game.getMoves()) {
+            out.writeByte(m.getX());
+            out.writeByte(m.getY());
+            writeNullable(out, m.getPlayerId());
+            out.writeLong(m.getTimestamp());
+        }
+
+        TimeControl tc = game.getTimeControl();
+        out.writeBoolean(tc != null);
+        if (tc != null) {
+            out.writeLong(tc.initialMillis);
+            out.writeLong(tc.incrementMillis);
+            out.writeLong(tc.moveMillis);
+            out.writeLong(game.getRemainingX());
+            out.writeLong(game.getRemainingO());
+            out.writeLong(Math.max(0, now - game.getTurnStartedAt()));
+        }
+    }
+
+    private static Game readGame(DataInputStream in, int version, long now) throws IOException {
+        Game game = new Game(in.readUTF());
+        game.setCreatedAt(in.readLong());
+        int state = in.readByte();
+        if (state >= GameState.values().length) throw new IOException("unknown state " + state + " in game " + game.getId());
+        game.setState(state >= 0 ? GameState.values()[state] : null);
+        char[] board = game.getBoard();
+        for (int i = 0; i < board.length; i++) board[i] = (char) in.readUnsignedByte();
+        game.setCurrentTurnPlayerId(readNullable(in));
+        String xId = readNullable(in);
+        String oId = readNullable(in);
+
+        int players = in.readUnsignedByte();
+        for (int i = 0; i < players; i++) {
+            String id = in.readUTF();
+            Player p = new Player(id, readNullable(in), internMark(readNullable(in)), readNullable(in));
+            game.getPlayers().put(id, p);
+            if (id.equals(xId)) game.setPlayerX(p);
+            if (id.equals(oId)) game.setPlayerO(p);
+        }
+
+        int moves = in.readUnsignedByte();
+        for (int i = 0; i < moves; i++) {
+            int x = in.readByte();
+            int y = in.readByte();
+            game.getMoves().add(new Move(x, y, readNullable(in), in.readLong()));
+        }
+
+        if (version >= 2 && in.readBoolean()) {
+            try {
+                game.setTimeControl(TimeControl.of(in.readLong(), in.readLong(), in.readLong()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("bad time control in game " + game.getId(), e);
+            }
+            game.setRemainingX(in.readLong());
+            game.setRemainingO(in.readLong());
+            game.setTurnStartedAt(now - in.readLong());
+        }
+        return game;
+    }
+
+    // marks are always "X" or "O"; share the constants instead of one string per player
+    private static String internMark(String mark) {
+        if ("X".equals(mark)) return "X";
+        if ("O".equals(mark)) return "O";
+        return mark;
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.xo.stats;
+
+import com.example.xo.model.Game;
+import com.example.xo.model.GameState;
+import com.example.xo.model.Move;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * live game analytics aggregated in place: outcomes by who moved first, opening cell frequencies and
+ * outcomes, match lengths, and moves/matches per second over sliding windows.
+ *
+ * events arrive from game listener callbacks under the game's monitor, so recording is only
+ * longadder increments and one cas on a time ring. reads sum the counters and never block writers;
+ * a snapshot taken while games finish can be off by the events in flight.
+ */
+public class GameStats {
+    private static final int RING_SECONDS = 1024;
+    private static final int[] WINDOWS = {60, 300, 900};
+
+    // first-mover outcome columns
+    private static final int WIN = 0;
+    private static final int LOSS = 1;
+    private static final int DRAW = 2;
+
+    private final long startMillis = System.currentTimeMillis();
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder matchMoves = new LongAdder();
+    private final LongAdder xWins = new LongAdder();
+    private final LongAdder oWins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+
+    // [first mark x/o][win, loss, draw] from the first mover's point of view
+    private final LongAdder[][] firstMover = adders(2, 3);
+    // [cell][opened, win, loss, draw], cell = x + y * 3 of the first move
+    private final LongAdder[] openings = adders(1, 9)[0];
+    private final LongAdder[][] openingOutcomes = adders(9, 3);
+    // finished matches by number of moves (0..9)
+    private final LongAdder[] lengths = adders(1, 10)[0];
+
+    private final TimeRing moveRing = new TimeRing(RING_SECONDS, startMillis);
+    private final TimeRing matchRing = new TimeRing(RING_SECONDS, startMillis);
+
+    /**
+     * record a valid move; the game's monitor is held.
+     */
+    public void onMove(Game game, Move move) {
+        moves.increment();
+        moveRing.record(move.getTimestamp());
+        if (game.getMoves().size() == 1) openings[cell(move)].increment();
+    }
+
+    /**
+     * record a finished match (win, draw or forfeit); the game's monitor is held.
+     */
+    public void onMatchFinished(Game game) {
+        GameState state = game.getState();
+        int played = game.getMoves().size();
+        matches.increment();
+        matchMoves.add(played);
+        lengths[Math.min(played, lengths.length - 1)].increment();
+        matchRing.record(System.currentTimeMillis());
+
+        char winner;
+        if (state == GameState.X_WON) {
+            winner = 'X';
+            xWins.increment();
+        } else if (state == GameState.O_WON) {
+            winner = 'O';
+            oWins.increment();
+        } else {
+            winner = 0;
+            draws.increment();
+        }
+
+        // a match forfeited before the first move has no opening
+        if (played == 0) return;
+        Move first = game.getMoves().get(0);
+        int cell = cell(first);
+        char firstMark = game.getBoard()[cell];
+        if (firstMark != 'X' && firstMark != 'O') return;
+        int column = winner == 0 ? DRAW : winner == firstMark ? WIN : LOSS;
+        firstMover[firstMark == 'X' ? 0 : 1][column].increment();
+        openingOutcomes[cell][column].increment();
+    }
+
+    /**
+     * point-in-time view for the stats endpoint.
+     */
+    public Map<String, Object> toMap() {
+        long now = System.currentTimeMillis();
+        long finished = matches.sum();
+
+        Map<String, Object> m = new HashMap<>();
+        m.put("uptimeSeconds", (now - startMillis) / 1000);
+        m.put("moves", moves.sum());
+        m.put("matches", finished);
+        m.put("averageMovesPerMatch", finished > 0 ? (double) matchMoves.sum() / finished : 0);
+
+        Map<String, Object> outcomes = new HashMap<>();
+        outcomes.put("X", xWins.sum());
+        outcomes.put("O", oWins.sum());
+        outcomes.put("DRAW", draws.sum());
+        m.put("outcomes", outcomes);
+
+        Map<String, Object> byFirst = new HashMap<>();
+        byFirst.put("X", outcomeMap(firstMover[0]));
+        byFirst.put("O", outcomeMap(firstMover[1]));
+        m.put("firstMover", byFirst);
+
+        List<Map<String, Object>> cells = new ArrayList<>(9);
+        for (int cell = 0; cell < 9; cell++) {
+            Map<String, Object> c = outcomeMap(openingOutcomes[cell]);
+            c.put("x", cell % 3);
+            c.put("y", cell / 3);
+            c.put("opened", openings[cell].sum());
+            cells.add(c);
+        }
+        m.put("openings", cells);
+
+        List<Long> byLength = new ArrayList<>(lengths.length);
+        for (LongAdder a : lengths) byLength.add(a.sum());
+        m.put("matchLengths", byLength);
+
+        long uptimeSeconds = Math.max(1, (now - startMillis + 999) / 1000);
+        Map<String, Object> throughput = new HashMap<>();
+        for (int window : WINDOWS) {
+            long span = Math.min(window, uptimeSeconds);
+            long windowMatches = matchRing.sum(now, window);
+            long windowMoves = moveRing.sum(now, window);
+            Map<String, Object> w = new HashMap<>();
+            w.put("matches", windowMatches);
+            w.put("moves", windowMoves);
+            w.put("matchesPerSecond", (double) windowMatches / span);
+            w.put("movesPerSecond", (double) windowMoves / span);
+            throughput.put(window / 60 + "m", w);
+        }
+        m.put("throughput", throughput);
+        return m;
+    }
+
+    private static Map<String, Object> outcomeMap(LongAdder[] counts) {
+        long wins = counts[WIN].sum();
+        long losses = counts[LOSS].sum();
+        long drawn = counts[DRAW].sum();
+        long total = wins + losses + drawn;
+        Map<String, Object> m = new HashMap<>();
+        m.put("matches", total);
+        m.put("wins", wins);
+        m.put("losses", losses);
+        m.put("draws", drawn);
+        m.put("winRate", total > 0 ? (double) wins / total : 0);
+        m.put("drawRate", total > 0 ? (double) drawn / total : 0);
+        return m;
+    }
+
+    private static int cell(Move move) {
+        return move.getX() + move.getY() * 3;
+    }
+
+    private static LongAdder[][] adders(int rows, int cols) {
+        LongAdder[][] a = new LongAdder[rows][cols];
+        for (LongAdder[] row : a) {
+            for (int i = 0; i < cols; i++) row[i] = new LongAdder();
+        }
+        return a;
+    }
+}
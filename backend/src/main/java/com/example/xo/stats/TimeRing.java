@@ -0,0 +1,60 @@
+package com.example.xo.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * per-second event counts for the last few minutes in a fixed ring, with no sweeper thread.
+ *
+ * each slot packs the second it counts (high 32 bits) and the count (low 32 bits) into one long, so
+ * recording is a single cas and a slot left from an earlier lap is restarted instead of cleared.
+ * the ring is striped by thread so decoder threads do not contend on the current second's slot.
+ */
+class TimeRing {
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1, Math.min(16, Runtime.getRuntime().availableProcessors())));
+
+    private final int seconds;
+    private final int mask;
+    private final long originMillis;
+    private final AtomicLongArray slots;
+
+    /**
+     * seconds is rounded up to a power of two.
+     */
+    TimeRing(int seconds, long originMillis) {
+        this.seconds = Integer.highestOneBit(Math.max(2, seconds - 1)) << 1;
+        this.mask = this.seconds - 1;
+        this.originMillis = originMillis;
+        this.slots = new AtomicLongArray(STRIPES * this.seconds);
+    }
+
+    void record(long nowMillis) {
+        long sec = second(nowMillis);
+        int i = (int) (Thread.currentThread().getId() & (STRIPES - 1)) * seconds + (int) (sec & mask);
+        for (;;) {
+            long v = slots.get(i);
+            long next = (v >>> 32) == sec ? v + 1 : (sec << 32) | 1;
+            if (slots.compareAndSet(i, v, next)) return;
+        }
+    }
+
+    /**
+     * events in the last window seconds, the current (partial) second included.
+     */
+    long sum(long nowMillis, int window) {
+        long sec = second(nowMillis);
+        long from = Math.max(0, sec - Math.min(window, seconds) + 1);
+        long total = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int base = stripe * seconds;
+            for (long s = from; s <= sec; s++) {
+                long v = slots.get(base + (int) (s & mask));
+                if ((v >>> 32) == s) total += v & 0xFFFFFFFFL;
+            }
+        }
+        return total;
+    }
+
+    private long second(long nowMillis) {
+        return Math.max(0, nowMillis - originMillis) / 1000;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.xo.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * hashed timer wheel: one thread drives every timeout in the server.
+ *
+ * scheduling is a lock-free enqueue and cancelling is a single cas, so hundreds of thousands of
+ * timers (reconnect grace periods, turn clocks) cost no more than a linked-list node each.
+ * expiry is accurate to one tick. tasks run on the wheel thread and must be short.
+ */
+public class TimerWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(TimerWheel.class);
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+
+    // only touched by the worker thread
+    private long tick;
+
+    public TimerWheel(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        this.tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), unit.toNanos(tickDuration));
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * run task once after the given delay. the returned handle can cancel it.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) throw new IllegalStateException("timer stopped");
+        long deadline = System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay));
+        Timeout t = new Timeout(this, task, deadline);
+        active.incrementAndGet();
+        pending.add(t);
+        return t;
+    }
+
+    /**
+     * number of timers that have neither fired nor been cancelled.
+     */
+    public int size() {
+        return active.get();
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                    continue;
+                }
+            }
+            transferPending();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout t = pending.poll();
+            if (t == null) return;
+            if (t.state != Timeout.PENDING) continue;
+            long due = t.deadline / tickNanos;
+            t.rounds = (due - tick) / wheel.length;
+            long slot = Math.max(due, tick);
+            wheel[(int) (slot & mask)].add(t);
+        }
+    }
+
+    /**
+     * handle for a scheduled task.
+     */
+    public static final class Timeout {
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimerWheel timer;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = PENDING;
+
+        // bucket links and remaining laps, owned by the worker thread
+        long rounds;
+        Timeout prev;
+        Timeout next;
+
+        Timeout(TimerWheel timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * cancel the task; false if it already fired or was cancelled.
+         * the node is unlinked lazily when the wheel next visits its bucket.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) return false;
+            timer.active.decrementAndGet();
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        /**
+         * milliseconds until the task fires (0 if due or no longer pending).
+         */
+        public long remainingMillis() {
+            if (state != PENDING) return 0;
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - (System.nanoTime() - timer.startNanos)));
+        }
+
+        void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) return;
+            timer.active.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.warn("Timer task failed: {}", t.getMessage(), t);
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout t) {
+            if (head == null) {
+                head = tail = t;
+            } else {
+                tail.next = t;
+                t.prev = tail;
+                tail = t;
+            }
+        }
+
+        void expire(long deadline) {
+            Timeout t = head;
+            while (t != null) {
+                Timeout next = t.next;
+                if (t.state != Timeout.PENDING) {
+                    remove(t);
+                } else if (t.rounds <= 0) {
+                    remove(t);
+                    if (t.deadline <= deadline) {
+                        t.expire();
+                    } else {
+                        // cannot happen: a timeout is only placed in the bucket of its own tick
+                        log.error("Timeout deadline {} after tick deadline {}", t.deadline, deadline);
+                    }
+                } else {
+                    t.rounds--;
+                }
+                t = next;
+            }
+        }
+
+        private void remove(Timeout t) {
+            if (t.prev != null) t.prev.next = t.next;
+            else head = t.next;
+            if (t.next != null) t.next.prev = t.prev;
+            else tail = t.prev;
+            t.prev = t.next = null;
+        }
+    }
+}
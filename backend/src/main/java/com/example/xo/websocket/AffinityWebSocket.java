@@ -0,0 +1,63 @@
+package com.example.xo.websocket;
+
+import org.java_websocket.WebSocketAdapter;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.server.DefaultWebSocketServerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * websocket that can be moved to the decoder thread serving its room.
+ *
+ * the selector counts every buffer it queues and decode() counts it off again, so the server knows
+ * when nothing of this socket is queued or being decoded; only then is it safe to switch decoders
+ * without reordering or overlapping frames.
+ */
+class AffinityWebSocket extends WebSocketImpl {
+
+    // buffers handed to a decoder but not yet decoded
+    final AtomicInteger pending = new AtomicInteger();
+
+    // hash of the room this socket should be decoded with, or -1 for no preference
+    private volatile int lane = -1;
+
+    AffinityWebSocket(WebSocketAdapter listener, List<Draft> drafts) {
+        super(listener, drafts);
+    }
+
+    AffinityWebSocket(WebSocketAdapter listener, Draft draft) {
+        super(listener, draft);
+    }
+
+    int getLane() {
+        return lane;
+    }
+
+    void setLane(String gameId) {
+        this.lane = gameId != null ? gameId.hashCode() & Integer.MAX_VALUE : -1;
+    }
+
+    @Override
+    public void decode(ByteBuffer socketBuffer) {
+        try {
+            super.decode(socketBuffer);
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    static class Factory extends DefaultWebSocketServerFactory {
+        @Override
+        public WebSocketImpl createWebSocket(WebSocketAdapter a, Draft d) {
+            return new AffinityWebSocket(a, d);
+        }
+
+        @Override
+        public WebSocketImpl createWebSocket(WebSocketAdapter a, List<Draft> d) {
+            return new AffinityWebSocket(a, d);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.xo.websocket;
+
+import com.example.xo.ratelimit.RateLimiter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * per-connection server state, stored as the websocket attachment so hot paths avoid map lookups.
+ */
+class ConnectionContext {
+    // player id of a connection that only watches a room
+    static final String WATCHER = "";
+
+    final RateLimiter.ConnectionLimits limits;
+
+    // rooms this connection takes part in: game id -> the player id it acts as there, or WATCHER
+    final Map<String, String> rooms = new ConcurrentHashMap<>();
+
+    ConnectionContext(RateLimiter.ConnectionLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * the player id this connection holds a seat as in any room, or null if it only watches.
+     */
+    String anyPlayerId() {
+        for (String playerId : rooms.values()) {
+            if (!WATCHER.equals(playerId)) return playerId;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.xo.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * starts and stops the standalone websocket server, including the snapshot warm restart.
+ * shared by the spring component and the spring-free launcher.
+ */
+public class GameServerLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(GameServerLifecycle.class);
+
+    // how long start() waits for the selector thread to bind the port
+    private static final long BIND_TIMEOUT_SECONDS = 10;
+
+    private final ServerSettings settings;
+    private final int port;
+
+    // live games are written here on shutdown and restored on startup (blank disables)
+    private final String snapshotPath;
+
+    private volatile StandaloneGameWebSocketServer server;
+
+    public GameServerLifecycle(ServerSettings settings) {
+        this.settings = settings;
+        this.port = settings.getInt("websocket.port", 8081);
+        this.snapshotPath = settings.getString("websocket.snapshot.path", null);
+    }
+
+    public StandaloneGameWebSocketServer start() {
+        // validate port
+        if (port < 1 || port > 65535) {
+            log.error("Invalid websocket.port value: {}. Port must be between 1 and 65535.", port);
+            throw new IllegalArgumentException("Invalid websocket.port: " + port);
+        }
+
+        try {
+            // instantiate with the integer port (standalonegamewebsocketserver wraps inet socket address)
+            server = new StandaloneGameWebSocketServer(port, settings);
+            restoreSnapshot();
+
+            // start server (non-blocking); binding happens on the selector thread, so wait for its outcome
+            server.start();
+            server.awaitStart(BIND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info("StandaloneGameWebSocketServer started and listening on port {}", port);
+            return server;
+        } catch (Exception e) {
+            log.error("Failed to start StandaloneGameWebSocketServer on port {}: {}", port, e.getMessage(), e);
+            server = null;
+            // fail fast: if the websocket server is essential, fail application startup so user sees the error
+            throw new RuntimeException("Unable to start WebSocket server on port " + port, e);
+        }
+    }
+
+    /**
+     * running server instance, or null before startup / after a failed start.
+     */
+    public StandaloneGameWebSocketServer getServer() {
+        return server;
+    }
+
+    public void stop() {
+        if (server != null) {
+            try {
+                log.info("Stopping StandaloneGameWebSocketServer...");
+                server.beginDrain();
+                saveSnapshot();
+                // websocketserver#stop() may throw interruptedexception/ioexception depending on underlying implementation
+                server.stop();
+                log.info("StandaloneGameWebSocketServer stopped.");
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while stopping WebSocket server: {}", ie.getMessage(), ie);
+            } catch (Exception e) {
+                log.error("Error while stopping StandaloneGameWebSocketServer: {}", e.getMessage(), e);
+            }
+        } else {
+            log.debug("No StandaloneGameWebSocketServer instance to stop.");
+        }
+    }
+
+    // warm restart: load rooms from the previous run before the port opens
+    private void restoreSnapshot() {
+        if (snapshotPath == null) return;
+        Path path = Path.of(snapshotPath);
+        if (!Files.exists(path)) {
+            log.info("No snapshot at {}, starting empty", path);
+            return;
+        }
+        try {
+            server.restoreSnapshot(path);
+        } catch (Exception e) {
+            // a bad snapshot must not keep the server down; keep the file for inspection
+            log.error("Failed to restore snapshot {}: {}", path, e.getMessage(), e);
+        }
+    }
+
+    private void saveSnapshot() {
+        if (snapshotPath == null) return;
+        try {
+            server.saveSnapshot(Path.of(snapshotPath));
+        } catch (Exception e) {
+            log.error("Failed to write snapshot {}: {}", snapshotPath, e.getMessage(), e);
+        }
+    }
+}
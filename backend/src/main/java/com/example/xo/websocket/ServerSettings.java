@@ -0,0 +1,60 @@
+package com.example.xo.websocket;
+
+import java.util.function.Function;
+
+/**
+ * typed, defaulted view over flat key/value configuration (application.properties style).
+ * spring passes its environment, other launchers can pass a plain properties lookup.
+ */
+public class ServerSettings {
+
+    private final Function<String, String> lookup;
+
+    public ServerSettings(Function<String, String> lookup) {
+        this.lookup = lookup != null ? lookup : k -> null;
+    }
+
+    public static ServerSettings defaults() {
+        return new ServerSettings(null);
+    }
+
+    public String getString(String key, String def) {
+        String v = lookup.apply(key);
+        return v == null || v.isBlank() ? def : v.trim();
+    }
+
+    public int getInt(String key, int def) {
+        String v = getString(key, null);
+        if (v == null) return def;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer for " + key + ": " + v);
+        }
+    }
+
+    public long getLong(String key, long def) {
+        String v = getString(key, null);
+        if (v == null) return def;
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid long for " + key + ": " + v);
+        }
+    }
+
+    public double getDouble(String key, double def) {
+        String v = getString(key, null);
+        if (v == null) return def;
+        try {
+            return Double.parseDouble(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + v);
+        }
+    }
+
+    public boolean getBoolean(String key, boolean def) {
+        String v = getString(key, null);
+        return v == null ? def : Boolean.parseBoolean(v);
+    }
+}
@@ -1,21 +1,56 @@
 package com.example.xo.websocket;
 
+import com.example.xo.jfr.BroadcastEvent;
+import com.example.xo.jfr.FlightRecording;
+import com.example.xo.jfr.MessageEvent;
+import com.example.xo.jfr.RoomEvent;
+import com.example.xo.lobby.LobbyIndex;
+import com.example.xo.lobby.LobbyRoom;
 import com.example.xo.model.Game;
+import com.example.xo.model.GameListener;
 import com.example.xo.model.Move;
 import com.example.xo.model.Player;
+import com.example.xo.model.TimeControl;
+import com.example.xo.ratelimit.MessageKind;
+import com.example.xo.ratelimit.RateLimiter;
+import com.example.xo.rating.Leaderboard;
+import com.example.xo.rating.Rating;
+import com.example.xo.rating.RatingService;
+import com.example.xo.snapshot.GameSnapshot;
+import com.example.xo.stats.GameStats;
+import com.example.xo.timer.TimerWheel;
 import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.framing.CloseFrame;
 import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.handshake.ServerHandshakeBuilder;
 import org.java_websocket.server.WebSocketServer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jdk.jfr.Recording;
 
+import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Skeleton standalone WebSocket server using org.java-websocket.
@@ -33,438 +68,729 @@ public class StandaloneGameWebSocketServer extends WebSocketServer {
     private final Map<String, Game> idToGame = new ConcurrentHashMap<>();
     private final ObjectMapper mapper = new ObjectMapper();
     private final Map<String , Set<WebSocket> > games = new ConcurrentHashMap<>();
-    public final Map<WebSocket , String> connToGame = new ConcurrentHashMap<>();
-    public final Map<WebSocket , String> connToPlayer = new ConcurrentHashMap<>();
+    // connection currently holding each seat; a connection's own rooms live in its ConnectionContext
+    private final Map<SeatKey, WebSocket> seats = new ConcurrentHashMap<>();
+    private final int maxRoomsPerConnection;
+
+    // open-room index and the connections following its change feed
+    private final LobbyIndex lobby = new LobbyIndex();
+    private final Set<WebSocket> lobbySubscribers = ConcurrentHashMap.newKeySet();
+    private static final long LOBBY_FLUSH_MILLIS = 250;
+
+    // elo ratings, fed from finished matches off the move path
+    private final RatingService ratings;
+
+    // live outcome/opening/throughput analytics
+    private final GameStats stats = new GameStats();
+
+    // every game reports here; fans out to the lobby index, the analytics and the rating queue
+    private final GameListener gameEvents = new GameListener() {
+        @Override
+        public void onStateChanged(Game game) {
+            lobby.onStateChanged(game);
+        }
+
+        @Override
+        public void onMoveApplied(Game game, Move move) {
+            stats.onMove(game, move);
+        }
+
+        @Override
+        public void onMatchFinished(Game game) {
+            stats.onMatchFinished(game);
+            ratings.submit(game);
+        }
+    };
+
+    // flood protection, checked before parsing where possible
+    private final RateLimiter rateLimiter;
+
+    // permessage-deflate negotiated on handshake; sends are then serialized per connection
+    private final boolean compression;
+
+    // one wheel drives every per-seat/per-game timeout
+    private final TimerWheel timers;
+
+    // disconnected seats are held this long for a reconnect before being forfeited/freed
+    private final long reconnectGraceMillis;
+    private final Map<SeatKey, TimerWheel.Timeout> graceTimers = new ConcurrentHashMap<>();
+
+    // one turn-clock timer per timed room; used when a start message carries no timeControl
+    private final Map<String, TimerWheel.Timeout> clockTimers = new ConcurrentHashMap<>();
+    private final TimeControl defaultTimeControl;
+
+    // set when a graceful shutdown begins: state-changing messages are refused so the snapshot is final
+    private volatile boolean draining;
+    // set when stop() begins: sockets closed by the shutdown itself get no reconnect grace timer
+    private volatile boolean stopping;
+    private static final Set<String> MUTATING_TYPES = Set.of("create", "join", "move", "leave", "close", "start");
+
+    // batch envelopes: frames sent to the requesting socket while a batch runs are collected into one reply
+    private static final ThreadLocal<BatchReplies> batchReplies = new ThreadLocal<>();
+    private final int maxBatchCommands;
+
+    // optional in-process flight recording (websocket.jfr.*), started with the server
+    private final ServerSettings settings;
+    private volatile Recording recording;
+
+    // startup handshake with the lifecycle: counted down once the port is bound or binding failed
+    private final CountDownLatch bound = new CountDownLatch(1);
+    private volatile Exception startFailure;
+    // snapshot restored before start; removed only once the port is bound so a failed start can retry it
+    private volatile Path restoredSnapshot;
+
+    // periodic housekeeping (lobby feed flush, rate limiter sweep)
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "xo-maintenance");
+        t.setDaemon(true);
+        return t;
+    });
 
     public StandaloneGameWebSocketServer(int port) {
-        super(new InetSocketAddress(port));
+        this(port, ServerSettings.defaults());
+    }
+
+    public StandaloneGameWebSocketServer(int port, ServerSettings settings) {
+        super(new InetSocketAddress(port), decoders(settings), drafts(settings));
+        // a quick restart must not fail on sockets of the previous run still in TIME_WAIT
+        setReuseAddr(true);
+        this.rateLimiter = new RateLimiter(settings);
+        this.ratings = new RatingService(settings);
+        this.maxRoomsPerConnection = settings.getInt("websocket.max-rooms-per-connection", 16);
+        this.maxBatchCommands = settings.getInt("websocket.batch.max-commands", 32);
+        this.settings = settings;
+        this.compression = deflateEnabled(settings);
+        if (settings.getBoolean("websocket.room-affinity", true)) {
+            setWebSocketFactory(new AffinityWebSocket.Factory());
+        }
+        this.reconnectGraceMillis = TimeUnit.SECONDS.toMillis(settings.getLong("websocket.reconnect-grace-seconds", 60));
+        this.timers = new TimerWheel("xo-timer", settings.getLong("websocket.timer.tick-millis", 100), TimeUnit.MILLISECONDS, 512);
+        this.defaultTimeControl = TimeControl.of(
+                secondsToMillis(settings.getDouble("websocket.clock.initial-seconds", 0)),
+                secondsToMillis(settings.getDouble("websocket.clock.increment-seconds", 0)),
+                secondsToMillis(settings.getDouble("websocket.clock.move-seconds", 0)));
+
+        // java-websocket pings every connection from a single timer and drops those that miss pongs
+        setConnectionLostTimeout(settings.getInt("websocket.connection-lost-timeout-seconds", 60));
+    }
+
+    // Decoder (worker) thread count; java-websocket always runs a single selector thread.
+    private static int decoders(ServerSettings settings) {
+        int n = settings.getInt("websocket.decoders", Runtime.getRuntime().availableProcessors());
+        if (n < 1) throw new IllegalArgumentException("websocket.decoders must be at least 1: " + n);
+        return n;
+    }
+
+    // Cap inbound frame size so oversized payloads are rejected before they are buffered and parsed,
+    // and offer permessage-deflate when enabled (clients that do not ask for it are served uncompressed).
+    // The extension applies the same cap to the inflated message.
+    private static List<Draft> drafts(ServerSettings settings) {
+        int maxFrameBytes = settings.getInt("websocket.max-frame-bytes", 64 * 1024);
+        List<IExtension> extensions = deflateEnabled(settings)
+                ? List.of(ThresholdDeflateExtension.fromSettings(settings, maxFrameBytes))
+                : Collections.emptyList();
+        return List.of(new Draft_6455(extensions, maxFrameBytes));
+    }
+
+    private static boolean deflateEnabled(ServerSettings settings) {
+        return settings.getBoolean("websocket.deflate.enabled", false);
+    }
+
+    public LobbyIndex getLobby() {
+        return lobby;
+    }
+
+    public RatingService getRatings() {
+        return ratings;
+    }
+
+    public GameStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public ServerHandshakeBuilder onWebsocketHandshakeReceivedAsServer(WebSocket conn, Draft draft, ClientHandshake request) throws InvalidDataException {
+        InetSocketAddress remote = conn.getRemoteSocketAddress();
+        if (remote != null && !rateLimiter.allowConnect(remote.getAddress())) {
+            log.warn("Refusing connection from {}: connect rate exceeded", remote);
+            throw new InvalidDataException(CloseFrame.POLICY_VALIDATION, "connection rate exceeded");
+        }
+        return super.onWebsocketHandshakeReceivedAsServer(conn, draft, request);
     }
 
     @Override
     public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        InetSocketAddress remote = conn.getRemoteSocketAddress();
+        InetAddress ip = remote != null ? remote.getAddress() : null;
+        conn.setAttachment(new ConnectionContext(rateLimiter.forConnection(ip)));
         sendJson(conn, Map.of("type", "welcome", "message", "connected"));
         log.debug("WebSocket opened: {}", conn.getRemoteSocketAddress());
     }
 
     @Override
     public void onClose(WebSocket conn, int code, String reason, boolean remote) {
-        String gameId = connToGame.remove(conn);
-    // capture playerid before removing it so broadcasts include it
-        String playerId = connToPlayer.get(conn);
-    // remove the mapping
-        connToPlayer.remove(conn);
-
-        if (gameId != null){
-            Set<WebSocket> peers = games.get(gameId);
-            if (peers != null){
-                peers.remove(conn);
-
-                Game game = idToGame.get(gameId);
-                if (game != null) {
-                    // keep player in model for reconnection; notify peers
-                    broadcastToGame(gameId, Map.of(
-                        "type", "player_disconnected",
-                        "gameId", gameId,
-                        "playerId", playerId
-                    ), null);
-                    log.info("Player {} disconnected from game {} (can reconnect)", playerId, gameId);
-                }
+        lobbySubscribers.remove(conn);
+        ConnectionContext ctx = conn.getAttachment();
+        if (ctx == null) return;
+
+        // each room the socket took part in is cleaned up on its own
+        for (String gameId : new ArrayList<>(ctx.rooms.keySet())) {
+            String playerId = detach(conn, gameId);
+            Game game = idToGame.get(gameId);
+            if (game == null || playerId == null || ConnectionContext.WATCHER.equals(playerId)) continue;
+
+            // keep player in model for reconnection; notify peers
+            broadcastToGame(gameId, Map.of(
+                "type", "player_disconnected",
+                "gameId", gameId,
+                "playerId", playerId
+            ), null);
+            log.info("Player {} disconnected from game {} (can reconnect)", playerId, gameId);
+            if (game.getPlayers().containsKey(playerId)) {
+                startGrace(game, playerId);
+            }
 
-                log.debug("After close, game {} has {} peers", gameId, peers.size());
-                // cleanup game only if all peers disconnected and model has no players
-                if (peers.isEmpty() && game != null && game.getPlayers().isEmpty()){
-                    games.remove(gameId);
-                    idToGame.remove(gameId);
-                    log.info("Removed empty game {}", gameId);
-                }
+            // cleanup game only if no player is seated or left in the model
+            if (game.getPlayers().isEmpty() && !hasSeatedPeer(gameId, game)) {
+                dropRoom(gameId, "empty");
+                log.info("Removed empty game {}", gameId);
             }
         }
     }
 
     @Override
     public void onMessage(WebSocket conn, String message) {
+        ConnectionContext ctx = conn.getAttachment();
+        if (ctx == null || !admit(conn, ctx, MessageKind.FRAME)) return;
+
+        // parse and handle times are only measured while the xo.Message event is enabled
+        MessageEvent event = new MessageEvent();
+        event.begin();
+        boolean timed = event.isEnabled();
+        long started = timed ? System.nanoTime() : 0;
+        long parsed = started;
+        JsonNode node = null;
+        try {
+            try {
+                node = mapper.readTree(message);
+            } catch (Exception parseError) {
+                // garbage frames have their own small budget so floods of them escalate quickly
+                if (!admit(conn, ctx, MessageKind.INVALID)) return;
+                throw parseError;
+            }
+            if (timed) parsed = System.nanoTime();
+            if ("batch".equals(node.path("type").asText())) {
+                handleBatch(conn, ctx, node);
+            } else {
+                dispatch(conn, ctx, node);
+            }
+        } catch (Exception e) {
+            sendJson(conn, Map.of("type", "error", "message", "invalid json"));
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.type = node != null ? node.path("type").asText("") : "invalid";
+                event.gameId = node != null ? node.path("gameId").asText(null) : null;
+                event.commands = node != null && node.path("commands").isArray() ? node.path("commands").size() : 1;
+                event.bytes = message.length();
+                event.parseTime = parsed - started;
+                event.handleTime = System.nanoTime() - parsed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * run the commands of a batch envelope in order and answer with one batch_result frame. each command is
+     * rate limited and drain-checked like a frame of its own; what it would have sent to this socket lands in
+     * its result, next to the client's correlation id. broadcasts to other peers go out as usual.
+     */
+    private void handleBatch(WebSocket conn, ConnectionContext ctx, JsonNode node) {
+        JsonNode commands = node.path("commands");
+        if (!commands.isArray() || commands.isEmpty()) {
+            sendJson(conn, Map.of("type", "error", "message", "missing commands"));
+            return;
+        }
+        if (commands.size() > maxBatchCommands) {
+            sendJson(conn, Map.of("type", "error", "message", "batch_too_large", "limit", maxBatchCommands));
+            return;
+        }
 
+        BatchReplies replies = new BatchReplies(conn);
+        batchReplies.set(replies);
         try {
-            JsonNode node = mapper.readTree(message);
-            String type = node.path("type").asText("");
+            for (JsonNode command : commands) {
+                replies.begin(command.path("id"));
+                if (!command.isObject() || "batch".equals(command.path("type").asText())) {
+                    sendJson(conn, Map.of("type", "error", "message", "invalid command"));
+                    continue;
+                }
+                try {
+                    dispatch(conn, ctx, command);
+                } catch (Exception e) {
+                    sendJson(conn, Map.of("type", "error", "message", "invalid command"));
+                }
+                // a command can exhaust the strike budget and close the socket
+                if (!conn.isOpen()) return;
+            }
+        } finally {
+            batchReplies.remove();
+        }
+        sendText(conn, replies.toJson(mapper));
+    }
 
-            log.debug("onMessage from {}: type={}", conn.getRemoteSocketAddress(), type);
-            switch (type){
-                
-                case "create": {
-                    String playerId = node.path("playerId").asText();
-                    if (playerId.isBlank()){
-                        sendJson(conn, Map.of("type", "error", "message", "missing playerId"));
-                        return;
-                    }
+    private void dispatch(WebSocket conn, ConnectionContext ctx, JsonNode node) {
+        String type = node.path("type").asText("");
+        if (!admit(conn, ctx, MessageKind.of(type))) return;
+        if (draining && MUTATING_TYPES.contains(type)) {
+            sendJson(conn, Map.of("type", "error", "message", "server_draining"));
+            return;
+        }
 
-                    // check if already in a game
-                    String existingGameId = connToGame.get(conn);
-                    if (existingGameId != null && idToGame.containsKey(existingGameId)) {
-                        // connection already in a game, return error
-                        sendJson(conn, Map.of("type", "error", "message", "already_in_game", "gameId", existingGameId));
-                        log.warn("Create attempt by {} who is already in game {}", playerId, existingGameId);
-                        return;
-                    }
+        log.debug("onMessage from {}: type={}", conn.getRemoteSocketAddress(), type);
+        switch (type){
+            
+            case "create": {
+                String playerId = node.path("playerId").asText();
+                if (playerId.isBlank()){
+                    sendJson(conn, Map.of("type", "error", "message", "missing playerId"));
+                    return;
+                }
 
-                    // generate unique 6-char id
-                    String gameId = generateUniqueGameId();
+                // one socket may take part in several rooms, up to a limit
+                if (roomLimitReached(conn, ctx)) return;
 
-                    // create game and register creator
-                    Game game = new Game(gameId);
-                    idToGame.put(gameId, game);
+                // generate unique 6-char id
+                String gameId = generateUniqueGameId();
 
-                    games.computeIfAbsent(gameId, k -> ConcurrentHashMap.newKeySet()).add(conn);
-                    connToGame.put(conn, gameId);
-                    connToPlayer.put(conn, playerId);
+                // create game and register creator
+                Game game = new Game(gameId);
+                game.setListener(gameEvents);
+                idToGame.put(gameId, game);
+                RoomEvent.emit("create", game, null);
 
-                    Player p = new Player(playerId, node.path("name").asText(null), null, null);
-                    game.addPlayer(p);
+                attach(conn, ctx, gameId, playerId);
 
-                    sendJson(conn, buildMessageWithState("created", game, Map.of("playerId", playerId, "gameId", gameId)));
-                    log.info("Game {} created by player {}", gameId, playerId);
-                    break;
-                }
-                case "sync": {
-                    String gameId = node.path("gameId").asText();
-                    String playerId = node.path("playerId").asText();
-                    
-                    if (gameId.isBlank() || playerId.isBlank()) {
-                        sendJson(conn, Map.of("type", "error", "message", "missing"));
-                        return;
-                    }
+                Player p = new Player(playerId, node.path("name").asText(null), null, null);
+                game.addPlayer(p);
 
-                    Game game = idToGame.get(gameId);
-                    if (game == null) {
-                        sendJson(conn, Map.of("type", "error", "message", "unknown_game", "gameId", gameId));
-                        log.warn("Sync request for unknown game {} by {}", gameId, playerId);
-                        return;
-                    }
+                sendJson(conn, buildMessageWithState("created", game, Map.of("playerId", playerId, "gameId", gameId)));
+                log.info("Game {} created by player {}", gameId, playerId);
+                break;
+            }
+            case "sync": {
+                String gameId = node.path("gameId").asText();
+                String playerId = node.path("playerId").asText();
+                
+                if (gameId.isBlank() || playerId.isBlank()) {
+                    sendJson(conn, Map.of("type", "error", "message", "missing"));
+                    return;
+                }
 
-                    // send current game state to the requesting connection
-                    sendJson(conn, buildMessageWithState("synced", game, Map.of("playerId", playerId)));
-                    log.info("Synced game state for {} to player {}", gameId, playerId);
-                    break;
-                }
-                case "reconnect": {
-                    String gameId = node.path("gameId").asText();
-                    String playerId = node.path("playerId").asText();
-                    
-                    if (gameId.isBlank() || playerId.isBlank()) {
-                        sendJson(conn, Map.of("type", "error", "message", "missing"));
-                        return;
-                    }
+                Game game = idToGame.get(gameId);
+                if (game == null) {
+                    sendJson(conn, Map.of("type", "error", "message", "unknown_game", "gameId", gameId));
+                    log.warn("Sync request for unknown game {} by {}", gameId, playerId);
+                    return;
+                }
 
-                    Game game = idToGame.get(gameId);
-                    if (game == null) {
-                        sendJson(conn, Map.of("type", "error", "message", "unknown_game", "gameId", gameId));
-                        log.warn("Reconnect request for unknown game {} by {}", gameId, playerId);
-                        return;
-                    }
+                // send current game state to the requesting connection
+                sendJson(conn, buildMessageWithState("synced", game, Map.of("playerId", playerId)));
+                log.info("Synced game state for {} to player {}", gameId, playerId);
+                break;
+            }
+            case "reconnect": {
+                String gameId = node.path("gameId").asText();
+                String playerId = node.path("playerId").asText();
+                
+                if (gameId.isBlank() || playerId.isBlank()) {
+                    sendJson(conn, Map.of("type", "error", "message", "missing"));
+                    return;
+                }
 
-                    // check if this player was part of the game
-                    Player existingPlayer = game.getPlayers().get(playerId);
-                    if (existingPlayer == null) {
-                        sendJson(conn, Map.of("type", "error", "message", "not_in_game", "gameId", gameId));
-                        log.warn("Reconnect request for game {} by unknown player {}", gameId, playerId);
-                        return;
-                    }
+                Game game = idToGame.get(gameId);
+                if (game == null) {
+                    sendJson(conn, Map.of("type", "error", "message", "unknown_game", "gameId", gameId));
+                    log.warn("Reconnect request for unknown game {} by {}", gameId, playerId);
+                    return;
+                }
 
-                    // remove stale connections for this player
-                    WebSocket oldConn = null;
-                    for (Map.Entry<WebSocket, String> entry : connToPlayer.entrySet()) {
-                        if (entry.getValue().equals(playerId) && entry.getKey() != conn) {
-                            oldConn = entry.getKey();
-                            break;
-                        }
-                    }
-                    if (oldConn != null) {
-                        connToGame.remove(oldConn);
-                        connToPlayer.remove(oldConn);
-                        Set<WebSocket> peers = games.get(gameId);
-                        if (peers != null) peers.remove(oldConn);
-                        log.info("Removed stale connection for player {} during reconnect", playerId);
-                    }
+                // check if this player was part of the game
+                Player existingPlayer = game.getPlayers().get(playerId);
+                if (existingPlayer == null) {
+                    sendJson(conn, Map.of("type", "error", "message", "not_in_game", "gameId", gameId));
+                    log.warn("Reconnect request for game {} by unknown player {}", gameId, playerId);
+                    return;
+                }
 
-                    // add new connection to the game
-                    games.computeIfAbsent(gameId, k -> ConcurrentHashMap.newKeySet()).add(conn);
-                    connToGame.put(conn, gameId);
-                    connToPlayer.put(conn, playerId);
-
-                    // first player is creator
-                    String role = "player";
-                    int idx = 0;
-                    for (String pid : game.getPlayers().keySet()) {
-                        if (pid.equals(playerId) && idx == 0) {
-                            role = "creator";
-                            break;
-                        }
-                        idx++;
-                    }
+                if (!ctx.rooms.containsKey(gameId) && roomLimitReached(conn, ctx)) return;
 
-                    // send current game state with reconnect confirmation
-                    Map<String, Object> extras = new java.util.HashMap<>();
-                    extras.put("playerId", playerId);
-                    extras.put("role", role);
-                    extras.put("reconnected", true);
-                    sendJson(conn, buildMessageWithState("reconnected", game, extras));
-                    
-                    log.info("Player {} reconnected to game {} as {}", playerId, gameId, role);
-                    break;
-                }
-                case "join":{
-                    String gameId = node.path("gameId").asText();
-                    String playerId = node.path("playerId").asText();
-                    if (gameId.isBlank() || playerId.isBlank()){
-                        sendJson(conn , Map.of("type" , "error" , "message" , "missing playerId or gameId"));
-                        return ;
+                // take over the seat; a stale connection still holding it leaves this room only
+                WebSocket oldConn = attach(conn, ctx, gameId, playerId);
+                if (oldConn != null && oldConn != conn) {
+                    ConnectionContext oldCtx = oldConn.getAttachment();
+                    if (oldCtx != null) oldCtx.rooms.remove(gameId, playerId);
+                    Set<WebSocket> peers = games.get(gameId);
+                    if (peers != null) peers.remove(oldConn);
+                    log.info("Removed stale connection for player {} during reconnect", playerId);
+                }
+                cancelGrace(gameId, playerId);
+
+                // first player is creator
+                String role = "player";
+                int idx = 0;
+                for (String pid : game.getPlayers().keySet()) {
+                    if (pid.equals(playerId) && idx == 0) {
+                        role = "creator";
+                        break;
                     }
+                    idx++;
+                }
 
-                    // check if already in a game
-                    String existingGameId = connToGame.get(conn);
-                    if (existingGameId != null) {
-                        if (existingGameId.equals(gameId)) {
-                            // trying to join the same game - treat as reconnection/sync
-                            Game existingGame = idToGame.get(gameId);
-                            if (existingGame != null) {
-                                sendJson(conn, buildMessageWithState("joined", existingGame, Map.of("playerId", playerId)));
-                                log.info("Player {} re-joined/synced to game {}", playerId, gameId);
-                                return;
-                            }
-                        } else {
-                            // trying to join a different game - error
-                            sendJson(conn, Map.of("type", "error", "message", "already_in_game", "gameId", existingGameId));
-                            log.warn("Player {} tried to join game {} but already in game {}", playerId, gameId, existingGameId);
-                            return;
-                        }
-                    }
+                // send current game state with reconnect confirmation
+                Map<String, Object> extras = new java.util.HashMap<>();
+                extras.put("playerId", playerId);
+                extras.put("role", role);
+                extras.put("reconnected", true);
+                sendJson(conn, buildMessageWithState("reconnected", game, extras));
+                
+                log.info("Player {} reconnected to game {} as {}", playerId, gameId, role);
+                break;
+            }
+            case "join":{
+                String gameId = node.path("gameId").asText();
+                String playerId = node.path("playerId").asText();
+                if (gameId.isBlank() || playerId.isBlank()){
+                    sendJson(conn , Map.of("type" , "error" , "message" , "missing playerId or gameId"));
+                    return ;
+                }
 
-                    // validate game exists
-                    Game game = idToGame.get(gameId);
-                    if (game == null) {
-                        sendJson(conn, Map.of("type", "error", "message", "unknown_game", "gameId", gameId));
-                        log.warn("Join attempt for unknown game {} by {}", gameId, playerId);
+                // already in this room - treat as reconnection/sync
+                String seatedAs = ctx.rooms.get(gameId);
+                if (seatedAs != null && !ConnectionContext.WATCHER.equals(seatedAs)) {
+                    Game existingGame = idToGame.get(gameId);
+                    if (existingGame != null) {
+                        sendJson(conn, buildMessageWithState("joined", existingGame, Map.of("playerId", playerId)));
+                        log.info("Player {} re-joined/synced to game {}", playerId, gameId);
                         return;
                     }
+                }
+                if (seatedAs == null && roomLimitReached(conn, ctx)) return;
 
-                    // check capacity
-                    synchronized (game) {
-                        if (game.getPlayers().size() >= 2) {
-                            sendJson(conn, Map.of("type", "error", "message", "game_full", "gameId", gameId));
-                            log.warn("Player {} tried to join full game {}", playerId, gameId);
-                            return;
-                        }
+                // validate game exists
+                Game game = idToGame.get(gameId);
+                if (game == null) {
+                    sendJson(conn, Map.of("type", "error", "message", "unknown_game", "gameId", gameId));
+                    log.warn("Join attempt for unknown game {} by {}", gameId, playerId);
+                    return;
+                }
 
-                        // add connection
-                        games.computeIfAbsent(gameId , k -> ConcurrentHashMap.newKeySet()).add(conn);
-                        connToGame.put(conn , gameId);
-                        connToPlayer.put(conn , playerId);
+                // check capacity
+                synchronized (game) {
+                    if (game.getPlayers().size() >= 2) {
+                        sendJson(conn, Map.of("type", "error", "message", "game_full", "gameId", gameId));
+                        log.warn("Player {} tried to join full game {}", playerId, gameId);
+                        return;
+                    }
 
-                        // Register player.
-                        Player p = new Player(playerId, node.path("name").asText(null), null, null);
-                        game.addPlayer(p);
+                    // add connection
+                    attach(conn, ctx, gameId, playerId);
 
-                        sendJson(conn, buildMessageWithState("joined", game, Map.of("playerId", playerId)));
+                    // Register player.
+                    Player p = new Player(playerId, node.path("name").asText(null), null, null);
+                    game.addPlayer(p);
 
-                        log.info("Player {} joined game {} — broadcasting to peers (excluding joiner)", playerId, gameId);
-                        broadcastToGame(gameId, buildMessageWithState("player_joined", game, Map.of("playerId", playerId, "name", node.path("name").asText(null))), conn);
-                    }
-                    break;
+                    sendJson(conn, buildMessageWithState("joined", game, Map.of("playerId", playerId)));
 
+                    log.info("Player {} joined game {} — broadcasting to peers (excluding joiner)", playerId, gameId);
+                    broadcastToGame(gameId, buildMessageWithState("player_joined", game, Map.of("playerId", playerId, "name", node.path("name").asText(null))), conn);
                 }
+                break;
 
-                case "move":{
-                    String gameId = node.path("gameId").asText(connToGame.getOrDefault(conn, ""));
-                    String playerId = node.path("playerId").asText(connToPlayer.getOrDefault(conn, ""));
-                    int x = node.path("x").asInt(-1);
-                    int y = node.path("y").asInt(-1);
+            }
 
-                    if (gameId.isBlank() || playerId.isBlank()) {
-                        sendJson(conn, Map.of("type", "error", "message", "not joined to a game"));
-                        return;
-                    }
+            case "move":{
+                String gameId = resolveGameId(node, ctx);
+                String playerId = node.path("playerId").asText(ctx.rooms.getOrDefault(gameId, ""));
+                int x = node.path("x").asInt(-1);
+                int y = node.path("y").asInt(-1);
 
-                    Game game = idToGame.get(gameId);
-                    if (game == null) {
-                        sendJson(conn, Map.of("type", "error", "message", "unknown game"));
-                        return;
-                    }
+                if (gameId.isBlank() || playerId.isBlank()) {
+                    sendJson(conn, Map.of("type", "error", "message", "not joined to a game"));
+                    return;
+                }
 
-                    Move m = new Move(x, y, playerId, System.currentTimeMillis());
-                    try {
-                        Game.MoveResult result = game.applyMove(m);
-
-                        // build extras for move
-                        Map<String,Object> moveExtras = new java.util.HashMap<>();
-                        moveExtras.put("playerId", playerId);
-                        moveExtras.put("x", x);
-                        moveExtras.put("y", y);
-                        moveExtras.put("nextTurn", result.nextPlayerId);
-
-                        // Broadcast move.
-                        broadcastToGame(gameId, buildMessageWithState("move", game, moveExtras), null);
-
-                        if (result.winner != null || result.draw) {
-                            Map<String,Object> overExtras = new java.util.HashMap<>();
-                            overExtras.put("winner", result.winner != null ? String.valueOf(result.winner) : (result.draw ? "DRAW" : null));
-                            broadcastToGame(gameId, buildMessageWithState("game_over", game, overExtras), null);
-                            // Keep model for restart.
-                        }
-                    } catch (IllegalArgumentException ex) {
-                        sendJson(conn, Map.of("type", "error", "message", ex.getMessage()));
-                    }
-                    break;
+                Game game = idToGame.get(gameId);
+                if (game == null) {
+                    sendJson(conn, Map.of("type", "error", "message", "unknown game"));
+                    return;
                 }
-                case "leave": {
-                    String gameId = node.path("gameId").asText();
-                    String playerId = node.path("playerId").asText();
-                    if (gameId.isBlank() || playerId.isBlank()) {
-                        sendJson(conn, Map.of("type", "error", "message", "missing"));
-                        return;
-                    }
 
-                    Game game = idToGame.get(gameId);
-                    if (game == null) {
-                        sendJson(conn, Map.of("type", "error", "message", "unknown game", "gameId", gameId));
-                        log.warn("Leave attempt for unknown game {} by {}", gameId, playerId);
-                        return;
+                Move m = new Move(x, y, playerId, System.currentTimeMillis());
+                try {
+                    Game.MoveResult result = game.applyMove(m);
+                    armClock(game);
+
+                    // build extras for move
+                    Map<String,Object> moveExtras = new java.util.HashMap<>();
+                    moveExtras.put("playerId", playerId);
+                    moveExtras.put("x", x);
+                    moveExtras.put("y", y);
+                    moveExtras.put("nextTurn", result.nextPlayerId);
+
+                    // Broadcast move.
+                    broadcastToGame(gameId, buildMessageWithState("move", game, moveExtras), null);
+
+                    if (result.winner != null || result.draw) {
+                        String winner = result.winner != null ? String.valueOf(result.winner) : "DRAW";
+                        broadcastToGame(gameId, buildGameOver(game, winner, result.draw ? "draw" : "win", null), null);
+                        // Keep model for restart.
                     }
+                } catch (IllegalArgumentException ex) {
+                    sendJson(conn, Map.of("type", "error", "message", ex.getMessage()));
+                }
+                break;
+            }
+            case "leave": {
+                String gameId = node.path("gameId").asText();
+                String playerId = node.path("playerId").asText();
+                if (gameId.isBlank() || playerId.isBlank()) {
+                    sendJson(conn, Map.of("type", "error", "message", "missing"));
+                    return;
+                }
 
-                    // Remove from peers.
-                    Set<WebSocket> peers = games.get(gameId);
-                    if (peers != null) {
-                        peers.remove(conn);
-                    }
+                Game game = idToGame.get(gameId);
+                if (game == null) {
+                    sendJson(conn, Map.of("type", "error", "message", "unknown game", "gameId", gameId));
+                    log.warn("Leave attempt for unknown game {} by {}", gameId, playerId);
+                    return;
+                }
 
-                    // Remove mappings.
-                    connToGame.remove(conn);
-                    connToPlayer.remove(conn);
+                // Only the socket holding the seat may give it up.
+                String seatedAs = ctx.rooms.get(gameId);
+                if (!playerId.equals(seatedAs)) {
+                    sendJson(conn, Map.of("type", "error", "message", "not authorized"));
+                    log.warn("Unauthorized leave attempt for game {} by {} (seated as {})", gameId, playerId, seatedAs);
+                    return;
+                }
 
-                    // Remove player and broadcast.
+                // Leaving a running match forfeits it, as an expired reconnect grace does.
+                Map<String,Object> over = null;
+                Map<String,Object> left;
+                synchronized (game) {
+                    Character winner = game.forfeit(playerId);
+                    if (winner != null) {
+                        over = buildGameOver(game, String.valueOf(winner), "forfeit", Map.of("forfeitedBy", playerId));
+                    }
                     game.removePlayer(playerId);
-                    broadcastToGame(gameId, buildMessageWithState("player_left", game, Map.of("playerId", playerId)), null);
+                    left = buildMessageWithState("player_left", game, Map.of("playerId", playerId));
+                }
+                cancelGrace(gameId, playerId);
+                if (over != null) broadcastToGame(gameId, over, null);
 
-                    log.info("Player {} left game {} via leave message", playerId, gameId);
+                // Remove from peers and mappings, then tell the rest.
+                detach(conn, gameId);
+                broadcastToGame(gameId, left, null);
 
-                    // Cleanup empty game.
-                    if (peers == null || peers.isEmpty()){
-                        games.remove(gameId);
-                        idToGame.remove(gameId);
-                        log.info("Removed empty game {} after leave", gameId);
-                    }
+                log.info("Player {} left game {} via leave message", playerId, gameId);
 
-                    // Ack leave.
-                    sendJson(conn, Map.of("type", "left", "gameId", gameId, "playerId", playerId));
-                    break;
+                // Cleanup game nobody is seated in any more.
+                if (!hasSeatedPeer(gameId, game)){
+                    dropRoom(gameId, "empty");
+                    log.info("Removed empty game {} after leave", gameId);
                 }
-                case "close": {
-                    String gameId = node.path("gameId").asText();
-                    String playerId = node.path("playerId").asText();
-                    if (gameId.isBlank() || playerId.isBlank()) {
-                        sendJson(conn, Map.of("type", "error", "message", "missing"));
-                        return;
-                    }
-
-                    Game game = idToGame.get(gameId);
-                    if (game == null) {
-                        sendJson(conn, Map.of("type", "error", "message", "unknown game", "gameId", gameId));
-                        log.warn("Close attempt for unknown game {} by {}", gameId, playerId);
-                        return;
-                    }
 
-                    // Verify owner.
-                    String ownerPlayer = connToPlayer.get(conn);
-                    if (ownerPlayer == null || !ownerPlayer.equals(playerId)) {
-                        sendJson(conn, Map.of("type", "error", "message", "not authorized"));
-                        log.warn("Unauthorized close attempt for game {} by {} (owner {})", gameId, playerId, ownerPlayer);
-                        return;
-                    }
+                // Ack leave.
+                sendJson(conn, Map.of("type", "left", "gameId", gameId, "playerId", playerId));
+                break;
+            }
+            case "close": {
+                String gameId = node.path("gameId").asText();
+                String playerId = node.path("playerId").asText();
+                if (gameId.isBlank() || playerId.isBlank()) {
+                    sendJson(conn, Map.of("type", "error", "message", "missing"));
+                    return;
+                }
 
-                    // Broadcast close.
-                    broadcastToGame(gameId, Map.of("type", "room_closed", "gameId", gameId), null);
+                Game game = idToGame.get(gameId);
+                if (game == null) {
+                    sendJson(conn, Map.of("type", "error", "message", "unknown game", "gameId", gameId));
+                    log.warn("Close attempt for unknown game {} by {}", gameId, playerId);
+                    return;
+                }
 
-                    // Cleanup and kick peers.
-                    Set<WebSocket> peers = games.remove(gameId);
-                    idToGame.remove(gameId);
+                // Verify owner.
+                String ownerPlayer = ctx.rooms.get(gameId);
+                if (ownerPlayer == null || !ownerPlayer.equals(playerId)) {
+                    sendJson(conn, Map.of("type", "error", "message", "not authorized"));
+                    log.warn("Unauthorized close attempt for game {} by {} (owner {})", gameId, playerId, ownerPlayer);
+                    return;
+                }
 
-                    if (peers != null) {
-                        for (WebSocket peer : peers) {
-                            try {
-                                // Send close frame.
-                                if (peer != conn && peer.isOpen()) {
-                                    try { peer.send(mapper.writeValueAsString(Map.of("type", "room_closed", "gameId", gameId))) ; } catch (Exception ignored) {}
+                // Broadcast close.
+                broadcastToGame(gameId, Map.of("type", "room_closed", "gameId", gameId), null);
+
+                // Cleanup and kick peers.
+                Set<WebSocket> peers = removeGame(gameId, "closed");
+
+                if (peers != null) {
+                    for (WebSocket peer : peers) {
+                        ConnectionContext peerCtx = peer.getAttachment();
+                        boolean lastRoom = peerCtx == null || peerCtx.rooms.size() <= 1;
+                        try {
+                            // Send close frame, unless the socket is still in other rooms.
+                            if (peer != conn && peer.isOpen()) {
+                                try { sendText(peer, mapper.writeValueAsString(Map.of("type", "room_closed", "gameId", gameId))) ; } catch (Exception ignored) {}
+                                if (lastRoom) {
                                     try { peer.close(1000, "room closed by owner") ; } catch (Exception ignored) {}
                                 }
-                            } finally {
-                                // Remove peer mappings.
-                                connToGame.remove(peer);
-                                connToPlayer.remove(peer);
                             }
+                        } finally {
+                            // Remove peer mappings.
+                            detach(peer, gameId);
                         }
                     }
+                }
 
-                    log.info("Game {} closed by {} and removed from server", gameId, playerId);
+                log.info("Game {} closed by {} and removed from server", gameId, playerId);
 
-                    // Ack close.
-                    sendJson(conn, Map.of("type", "closed", "gameId", gameId, "playerId", playerId));
-                    break;
+                // Ack close.
+                sendJson(conn, Map.of("type", "closed", "gameId", gameId, "playerId", playerId));
+                break;
+            }
+            case "start": {
+                String gameId = node.path("gameId").asText();
+                String playerId = node.path("playerId").asText();
+                boolean creatorStarts = node.path("creatorStarts").asBoolean(true);
+
+                if (gameId.isBlank() || playerId.isBlank()) {
+                    sendJson(conn, Map.of("type", "error", "message", "missing"));
+                    return;
                 }
-                case "start": {
-                    String gameId = node.path("gameId").asText();
-                    String playerId = node.path("playerId").asText();
-                    boolean creatorStarts = node.path("creatorStarts").asBoolean(true);
 
-                    if (gameId.isBlank() || playerId.isBlank()) {
-                        sendJson(conn, Map.of("type", "error", "message", "missing"));
-                        return;
-                    }
+                Game game = idToGame.get(gameId);
+                if (game == null) {
+                    sendJson(conn, Map.of("type", "error", "message", "unknown game", "gameId", gameId));
+                    log.warn("Start attempt for unknown game {} by {}", gameId, playerId);
+                    return;
+                }
 
-                    Game game = idToGame.get(gameId);
-                    if (game == null) {
-                        sendJson(conn, Map.of("type", "error", "message", "unknown game", "gameId", gameId));
-                        log.warn("Start attempt for unknown game {} by {}", gameId, playerId);
-                        return;
-                    }
+                // Verify owner.
+                String ownerPlayer = ctx.rooms.get(gameId);
+                if (ownerPlayer == null || !ownerPlayer.equals(playerId)) {
+                    sendJson(conn, Map.of("type", "error", "message", "not authorized"));
+                    log.warn("Unauthorized start attempt for game {} by {} (owner {})", gameId, playerId, ownerPlayer);
+                    return;
+                }
 
-                    // Verify owner.
-                    String ownerPlayer = connToPlayer.get(conn);
-                    if (ownerPlayer == null || !ownerPlayer.equals(playerId)) {
-                        sendJson(conn, Map.of("type", "error", "message", "not authorized"));
-                        log.warn("Unauthorized start attempt for game {} by {} (owner {})", gameId, playerId, ownerPlayer);
-                        return;
+                // Determine start player.
+                String startPlayerId = playerId;
+                if (!creatorStarts) {
+                    for (Map.Entry<String, Player> e : game.getPlayers().entrySet()) {
+                        if (!e.getKey().equals(playerId) && e.getValue().getMark() != null) {
+                            startPlayerId = e.getKey();
+                            break;
+                        }
                     }
+                }
 
-                    // Determine start player.
-                    String startPlayerId = playerId;
-                    if (!creatorStarts) {
-                        for (Map.Entry<String, Player> e : game.getPlayers().entrySet()) {
-                            if (!e.getKey().equals(playerId) && e.getValue().getMark() != null) {
-                                startPlayerId = e.getKey();
-                                break;
-                            }
-                        }
+                // Clock settings: {"initialSeconds", "incrementSeconds", "moveSeconds"}, else the server default.
+                TimeControl timeControl = defaultTimeControl;
+                JsonNode tc = node.path("timeControl");
+                if (tc.isObject()) {
+                    try {
+                        timeControl = TimeControl.of(
+                                secondsToMillis(tc.path("initialSeconds").asDouble(0)),
+                                secondsToMillis(tc.path("incrementSeconds").asDouble(0)),
+                                secondsToMillis(tc.path("moveSeconds").asDouble(0)));
+                    } catch (IllegalArgumentException ex) {
+                        sendJson(conn, Map.of("type", "error", "message", "invalid timeControl: " + ex.getMessage()));
+                        return;
                     }
+                }
 
-                    // Reset game.
+                // Reset game; the clock starts together with the match so no move can slip in between.
+                synchronized (game) {
                     game.resetForNewMatch();
                     game.setCurrentTurnPlayerId(startPlayerId);
                     game.setState(com.example.xo.model.GameState.IN_PROGRESS);
+                    game.startClock(timeControl, System.currentTimeMillis());
+                }
+                armClock(game);
+
+                // Broadcast start.
+                broadcastToGame(gameId, buildMessageWithState("game_started", game, Map.of("startedBy", playerId, "startPlayerId", startPlayerId)), null);
 
-                    // Broadcast start.
-                    broadcastToGame(gameId, buildMessageWithState("game_started", game, Map.of("startedBy", playerId, "startPlayerId", startPlayerId)), null);
+                log.info("Game {} started by {} — startPlayer={}", gameId, playerId, startPlayerId);
+                break;
+            }
+            case "lobby_subscribe": {
+                int limit = node.path("limit").asInt(50);
 
-                    log.info("Game {} started by {} — startPlayer={}", gameId, playerId, startPlayerId);
-                    break;
+                // subscribe before taking the snapshot so no change falls in between; ops are idempotent
+                boolean added = lobbySubscribers.add(conn);
+                List<LobbyRoom> rooms;
+                try {
+                    rooms = lobby.page(node.path("cursor").asText(null), limit);
+                } catch (IllegalArgumentException ex) {
+                    if (added) lobbySubscribers.remove(conn);
+                    sendJson(conn, Map.of("type", "error", "message", ex.getMessage()));
+                    return;
                 }
+                sendJson(conn, buildLobbyPage("lobby_snapshot", rooms, limit));
+                log.debug("Connection {} subscribed to lobby ({} open rooms)", conn.getRemoteSocketAddress(), lobby.size());
+                break;
+            }
+            case "lobby_unsubscribe": {
+                lobbySubscribers.remove(conn);
+                sendJson(conn, Map.of("type", "lobby_unsubscribed"));
+                break;
+            }
+            case "watch": {
+                String gameId = node.path("gameId").asText();
+                if (gameId.isBlank()) {
+                    sendJson(conn, Map.of("type", "error", "message", "missing gameId"));
+                    return;
+                }
+                Game game = idToGame.get(gameId);
+                if (game == null) {
+                    sendJson(conn, Map.of("type", "error", "message", "unknown_game", "gameId", gameId));
+                    return;
+                }
+                // a seat already delivers every update of the room
+                if (!ctx.rooms.containsKey(gameId)) {
+                    if (roomLimitReached(conn, ctx)) return;
+                    attach(conn, ctx, gameId, ConnectionContext.WATCHER);
+                }
+                sendJson(conn, buildMessageWithState("watching", game, null));
+                break;
+            }
+            case "unwatch": {
+                String gameId = node.path("gameId").asText();
+                if (ConnectionContext.WATCHER.equals(ctx.rooms.get(gameId))) detach(conn, gameId);
+                sendJson(conn, Map.of("type", "unwatched", "gameId", gameId));
+                break;
+            }
+            case "leaderboard": {
+                String playerId = node.path("playerId").asText(ctx.anyPlayerId());
+                sendJson(conn, buildLeaderboard("leaderboard", node.path("limit").asInt(10), playerId));
+                break;
             }
-        } catch (Exception e) {
-            sendJson(conn, Map.of("type", "error", "message", "invalid json"));
         }
     }
 
     @Override
     public void onError(WebSocket conn, Exception ex) {
-        ex.printStackTrace();
+        if (conn == null && bound.getCount() > 0) {
+            // the selector thread failed before onStart, typically a bind error
+            startFailure = ex;
+            bound.countDown();
+        }
+        if (conn == null) {
+            log.error("WebSocket server error", ex);
+        } else {
+            log.error("WebSocket error on {}", conn.getRemoteSocketAddress(), ex);
+        }
         if (conn != null && conn.isOpen()) {
             sendJson(conn, Map.of("type", "error", "message", "server error"));
         }
@@ -472,17 +798,397 @@ public class StandaloneGameWebSocketServer extends WebSocketServer {
 
     @Override
     public void onStart() {
-        // TODO: server startup tasks
+        Path snapshot = restoredSnapshot;
+        if (snapshot != null) {
+            try {
+                Files.deleteIfExists(snapshot);
+            } catch (IOException e) {
+                log.warn("Could not delete restored snapshot {}: {}", snapshot, e.getMessage());
+            }
+            restoredSnapshot = null;
+        }
+        bound.countDown();
+        recording = FlightRecording.start(settings);
+        maintenance.scheduleWithFixedDelay(this::flushLobbyChanges, LOBBY_FLUSH_MILLIS, LOBBY_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        if (rateLimiter.isEnabled()) {
+            maintenance.scheduleWithFixedDelay(rateLimiter::sweepIdle, 60, 60, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void stop(int timeout, String closeMessage) throws InterruptedException {
+        stopping = true;
+        // close sockets first: their onClose still runs against live timers and maintenance
+        super.stop(timeout, closeMessage);
+        maintenance.shutdownNow();
+        timers.stop();
+        ratings.stop();
+        FlightRecording.stop(recording);
+        recording = null;
+    }
+
+    /**
+     * wait until the port is bound. throws the selector thread's error if binding failed, or
+     * illegalstateexception on timeout.
+     */
+    public void awaitStart(long timeout, TimeUnit unit) throws Exception {
+        if (!bound.await(timeout, unit)) throw new IllegalStateException("server did not bind within " + timeout + " " + unit);
+        if (startFailure != null) throw startFailure;
+    }
+
+    /**
+     * enter graceful-drain mode: no new rooms, no further game changes. sync and reconnect still work.
+     */
+    public void beginDrain() {
+        draining = true;
+        log.info("Draining: refusing state-changing messages ({} games live)", idToGame.size());
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * write every live game to a binary snapshot; call after {@link #beginDrain()}.
+     */
+    public int saveSnapshot(Path path) throws IOException {
+        long started = System.nanoTime();
+        int count = GameSnapshot.write(path, idToGame.values());
+        log.info("Wrote snapshot of {} games to {} in {} ms", count, path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return count;
+    }
+
+    /**
+     * load games from a snapshot before the server starts. restored players are disconnected, so each
+     * seat gets a reconnect grace period. the file is deleted once the port is bound (see onStart), so it
+     * is never replayed twice but survives a start that fails.
+     */
+    public int restoreSnapshot(Path path) throws IOException {
+        long started = System.nanoTime();
+        int count = GameSnapshot.read(path, game -> {
+            if (idToGame.putIfAbsent(game.getId(), game) != null) {
+                log.warn("Snapshot game {} already live, skipping", game.getId());
+                return;
+            }
+            synchronized (game) {
+                game.setListener(gameEvents);
+                lobby.onStateChanged(game);
+                for (String playerId : game.getPlayers().keySet()) startGrace(game, playerId);
+            }
+            RoomEvent.emit("restore", game, null);
+            armClock(game);
+        });
+        restoredSnapshot = path;
+        log.info("Restored {} games from {} in {} ms", count, path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return count;
+    }
+
+    /**
+     * build a lobby page message: rooms plus the cursor for the next page (null when exhausted).
+     */
+    public Map<String,Object> buildLobbyPage(String type, List<LobbyRoom> rooms, int limit) {
+        List<Map<String,Object>> list = new ArrayList<>(rooms.size());
+        for (LobbyRoom r : rooms) list.add(r.toMap());
+        Map<String,Object> m = new java.util.HashMap<>();
+        m.put("type", type);
+        m.put("rooms", list);
+        m.put("total", lobby.size());
+        m.put("nextCursor", !rooms.isEmpty() && rooms.size() >= Math.min(limit, LobbyIndex.MAX_PAGE_SIZE)
+                ? rooms.get(rooms.size() - 1).cursor() : null);
+        return m;
+    }
+
+    /**
+     * build a leaderboard message: the top players with their rank, plus the given player's row
+     * ("me", null if unrated) when a player id is supplied.
+     */
+    public Map<String,Object> buildLeaderboard(String type, int limit, String playerId) {
+        Leaderboard board = ratings.getLeaderboard();
+        List<Map<String,Object>> top = new ArrayList<>();
+        for (Rating r : board.top(limit)) top.add(ratingRow(board, r));
+        Map<String,Object> m = new java.util.HashMap<>();
+        m.put("type", type);
+        m.put("top", top);
+        m.put("total", board.size());
+        if (playerId != null && !playerId.isBlank()) {
+            Rating me = board.get(playerId);
+            m.put("me", me != null ? ratingRow(board, me) : null);
+        }
+        return m;
+    }
+
+    private static Map<String,Object> ratingRow(Leaderboard board, Rating r) {
+        Map<String,Object> row = r.toMap();
+        row.put("rank", board.rank(r));
+        return row;
+    }
+
+    // Push coalesced lobby changes to subscribers as one shared frame.
+    private void flushLobbyChanges() {
+        try {
+            List<Map<String,Object>> changes = lobby.drainChanges();
+            if (changes.isEmpty() || lobbySubscribers.isEmpty()) return;
+            String json = mapper.writeValueAsString(Map.of("type", "lobby_update", "changes", changes));
+            for (WebSocket sub : lobbySubscribers) {
+                if (sub.isOpen()) {
+                    try { sendText(sub, json); } catch (Exception ignored) {}
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to flush lobby changes: {}", e.getMessage(), e);
+        }
+    }
+
+    // Hold a disconnected player's seat for the grace period.
+    private void startGrace(Game game, String playerId) {
+        if (stopping) return;
+        SeatKey key = new SeatKey(game.getId(), playerId);
+        TimerWheel.Timeout t = timers.schedule(() -> expireSeat(game, playerId), reconnectGraceMillis, TimeUnit.MILLISECONDS);
+        TimerWheel.Timeout previous = graceTimers.put(key, t);
+        if (previous != null) previous.cancel();
+    }
+
+    private void cancelGrace(String gameId, String playerId) {
+        TimerWheel.Timeout t = graceTimers.remove(new SeatKey(gameId, playerId));
+        if (t != null) t.cancel();
+    }
+
+    // Grace period ran out: forfeit a running match, free the seat and drop the room once nobody is left.
+    private void expireSeat(Game game, String playerId) {
+        String gameId = game.getId();
+        graceTimers.computeIfPresent(new SeatKey(gameId, playerId), (k, t) -> t.isExpired() ? null : t);
+
+        Map<String,Object> over = null;
+        Map<String,Object> left;
+        synchronized (game) {
+            // the room may have been closed (and its id reused) or the player may be back
+            if (idToGame.get(gameId) != game || !game.getPlayers().containsKey(playerId) || isSeatConnected(gameId, playerId)) {
+                return;
+            }
+            Character winner = game.forfeit(playerId);
+            if (winner != null) {
+                over = buildGameOver(game, String.valueOf(winner), "forfeit", Map.of("forfeitedBy", playerId));
+            }
+            game.removePlayer(playerId);
+            left = buildMessageWithState("player_left", game, Map.of("playerId", playerId, "reason", "timeout"));
+        }
+
+        if (over != null) broadcastToGame(gameId, over, null);
+        broadcastToGame(gameId, left, null);
+        log.info("Reconnect grace expired for player {} in game {}{}", playerId, gameId, over != null ? " (forfeited)" : "");
+
+        if (game.getPlayers().isEmpty() && !hasSeatedPeer(gameId, game)) {
+            dropRoom(gameId, "abandoned");
+            log.info("Removed abandoned game {}", gameId);
+        }
+    }
+
+    /**
+     * make sure the room's clock timer fires no later than the current turn deadline.
+     * a timer that is already due earlier is kept: it re-arms itself when it finds time left, so a
+     * move that pushes the deadline back costs no wheel operation at all.
+     */
+    private void armClock(Game game) {
+        clockTimers.compute(game.getId(), (gameId, current) -> {
+            long deadline = game.turnDeadline();
+            if (deadline == Long.MAX_VALUE) {
+                if (current != null) current.cancel();
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            if (current != null && !current.isCancelled() && !current.isExpired()
+                    && now + current.remainingMillis() <= deadline) {
+                return current;
+            }
+            if (current != null) current.cancel();
+            return timers.schedule(() -> onClockDue(game), deadline - now, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void cancelClock(String gameId) {
+        TimerWheel.Timeout t = clockTimers.remove(gameId);
+        if (t != null) t.cancel();
+    }
+
+    // Clock timer fired: flag the player to move if their time is really up, otherwise re-arm.
+    private void onClockDue(Game game) {
+        String gameId = game.getId();
+        clockTimers.computeIfPresent(gameId, (k, t) -> t.isExpired() ? null : t);
+
+        Map<String,Object> over = null;
+        String flagged;
+        synchronized (game) {
+            if (idToGame.get(gameId) != game) return;
+            flagged = game.getCurrentTurnPlayerId();
+            Character winner = game.timeOut(System.currentTimeMillis());
+            if (winner != null) {
+                over = buildGameOver(game, String.valueOf(winner), "timeout", Map.of("forfeitedBy", flagged));
+            }
+        }
+
+        if (over == null) {
+            armClock(game);
+            return;
+        }
+        broadcastToGame(gameId, over, null);
+        log.info("Player {} ran out of time in game {}", flagged, gameId);
+    }
+
+    private static long secondsToMillis(double seconds) {
+        return Math.round(seconds * 1000);
+    }
+
+    private boolean isSeatConnected(String gameId, String playerId) {
+        return seats.containsKey(new SeatKey(gameId, playerId));
+    }
+
+    private boolean hasSeatedPeer(String gameId, Game game) {
+        for (String playerId : game.getPlayers().keySet()) {
+            if (isSeatConnected(gameId, playerId)) return true;
+        }
+        return false;
+    }
+
+    private Map<String,Object> buildGameOver(Game game, String winner, String reason, Map<String,Object> extras) {
+        Map<String,Object> overExtras = new java.util.HashMap<>();
+        overExtras.put("winner", winner);
+        overExtras.put("reason", reason);
+        if (extras != null) overExtras.putAll(extras);
+        return buildMessageWithState("game_over", game, overExtras);
+    }
+
+    // Remove a game and its peer set; returns the peers that were registered.
+    private Set<WebSocket> removeGame(String gameId, String reason) {
+        Set<WebSocket> peers = games.remove(gameId);
+        Game game = idToGame.remove(gameId);
+        cancelClock(gameId);
+        if (game != null) {
+            synchronized (game) {
+                game.setListener(null);
+                lobby.remove(game);
+            }
+            RoomEvent.emit("evict", game, reason);
+        }
+        return peers;
+    }
+
+
+    /**
+     * move a socket to the decoder that owns its room, once nothing of it is queued or being decoded.
+     * called by the selector thread only, right after it queued a new buffer for ws.
+     */
+    @Override
+    protected void queue(WebSocketImpl ws) throws InterruptedException {
+        if (ws instanceof AffinityWebSocket) {
+            AffinityWebSocket a = (AffinityWebSocket) ws;
+            int lane = a.getLane();
+            // pending == 1 means the buffer just queued is the only one outstanding
+            if (a.pending.incrementAndGet() == 1 && lane >= 0 && decoders.size() > 1) {
+                WebSocketWorker target = decoders.get(lane % decoders.size());
+                if (ws.getWorkerThread() != target) ws.setWorkerThread(target);
+            }
+        }
+        super.queue(ws);
+    }
+
+    /**
+     * register conn in a room as playerId (or ConnectionContext.WATCHER). returns the connection that
+     * held the seat before, if any. the first room a socket enters decides its decoder lane.
+     */
+    private WebSocket attach(WebSocket conn, ConnectionContext ctx, String gameId, String playerId) {
+        games.computeIfAbsent(gameId, k -> ConcurrentHashMap.newKeySet()).add(conn);
+        ctx.rooms.put(gameId, playerId);
+        if (ctx.rooms.size() == 1) pinToRoom(conn, gameId);
+        if (ConnectionContext.WATCHER.equals(playerId)) return null;
+        return seats.put(new SeatKey(gameId, playerId), conn);
+    }
+
+    /**
+     * take conn out of one room; returns the player id it acted as there, or null if it was not in it.
+     */
+    private String detach(WebSocket conn, String gameId) {
+        ConnectionContext ctx = conn.getAttachment();
+        String playerId = ctx != null ? ctx.rooms.remove(gameId) : null;
+        Set<WebSocket> peers = games.get(gameId);
+        if (peers != null) peers.remove(conn);
+        if (playerId != null && !ConnectionContext.WATCHER.equals(playerId)) {
+            seats.remove(new SeatKey(gameId, playerId), conn);
+        }
+        return playerId;
+    }
+
+    // Remove a room nobody plays in any more; remaining watchers are told and detached.
+    private void dropRoom(String gameId, String reason) {
+        Set<WebSocket> peers = removeGame(gameId, reason);
+        if (peers == null) return;
+        for (WebSocket peer : peers) {
+            detach(peer, gameId);
+            if (peer.isOpen()) sendJson(peer, Map.of("type", "room_closed", "gameId", gameId));
+        }
+    }
+
+    // Explicit gameId, or the connection's only room for clients that send moves without one.
+    private static String resolveGameId(JsonNode node, ConnectionContext ctx) {
+        String gameId = node.path("gameId").asText("");
+        if (!gameId.isBlank() || ctx.rooms.size() != 1) return gameId;
+        for (String only : ctx.rooms.keySet()) return only;
+        return "";
+    }
+
+    private boolean roomLimitReached(WebSocket conn, ConnectionContext ctx) {
+        if (ctx.rooms.size() < maxRoomsPerConnection) return false;
+        sendJson(conn, Map.of("type", "error", "message", "too_many_rooms", "limit", maxRoomsPerConnection));
+        return true;
+    }
+
+    // Serve every socket of a room from one decoder thread so game updates never cross threads or contend.
+    private void pinToRoom(WebSocket conn, String gameId) {
+        if (conn instanceof AffinityWebSocket) ((AffinityWebSocket) conn).setLane(gameId);
+    }
+
+    // Charge one message to the connection's budget; repeat offenders are disconnected.
+    private boolean admit(WebSocket conn, ConnectionContext ctx, MessageKind kind) {
+        RateLimiter.ConnectionLimits limits = ctx.limits;
+        if (limits.tryAcquire(kind)) return true;
+        if (!limits.strike()) {
+            log.warn("Disconnecting {}: rate limit strikes exhausted (last kind={})", conn.getRemoteSocketAddress(), kind.key);
+            conn.close(CloseFrame.POLICY_VALIDATION, "rate limit exceeded");
+        } else if (inBatch(conn) || limits.shouldNotify()) {
+            // inside a batch the reply is the only way to tell a rejected command from an empty success
+            sendJson(conn, Map.of("type", "error", "message", "rate_limited", "kind", kind.key,
+                    "retryAfterMs", limits.retryAfterMillis(kind)));
+        }
+        return false;
     }
 
+    private static boolean inBatch(WebSocket conn) {
+        BatchReplies batch = batchReplies.get();
+        return batch != null && batch.conn == conn;
+    }
+
+    // With a shared deflate context, compressing and queueing a frame must not interleave with another sender.
+    private void sendText(WebSocket conn, String json) {
+        BatchReplies batch = batchReplies.get();
+        if (batch != null && batch.conn == conn) {
+            batch.add(json);
+            return;
+        }
+        if (compression) {
+            synchronized (conn) {
+                conn.send(json);
+            }
+        } else {
+            conn.send(json);
+        }
+    }
 
     private void sendJson(WebSocket conn , Object obj){
         try{
             String json = mapper.writeValueAsString(obj);
-            conn.send(json);
+            sendText(conn, json);
         }
         catch (Exception e){
-            e.printStackTrace();
+            log.warn("Could not send message to {}", conn.getRemoteSocketAddress(), e);
         }
     }
     
@@ -505,30 +1211,102 @@ public class StandaloneGameWebSocketServer extends WebSocketServer {
         }
         m.put("players", players);
 
+        TimeControl tc = game.getTimeControl();
+        if (tc != null) m.put("clock", buildClock(game, tc));
+
         if (extras != null) m.putAll(extras);
         return m;
     }
+
+    // Time left in millis as of serverTime: each mark's game budget and the running turn's allowance.
+    private Map<String,Object> buildClock(Game game, TimeControl tc) {
+        Map<String,Object> c = new java.util.HashMap<>();
+        c.put("timeControl", tc.toMap());
+        synchronized (game) {
+            long now = System.currentTimeMillis();
+            c.put("serverTime", now);
+            if (tc.hasGameBudget()) {
+                c.put("X", game.remainingMillis("X", now));
+                c.put("O", game.remainingMillis("O", now));
+            }
+            long deadline = game.turnDeadline();
+            c.put("running", deadline != Long.MAX_VALUE);
+            if (deadline != Long.MAX_VALUE) c.put("turnMillis", Math.max(0, deadline - now));
+        }
+        return c;
+    }
     private void broadcastToGame(String gameId , Object obj , WebSocket exclude){
         Set<WebSocket> peers = games.get(gameId);
         if (peers == null || peers.isEmpty()) return;
+        BroadcastEvent event = new BroadcastEvent();
+        event.begin();
         String json;
         try {
             json = mapper.writeValueAsString(obj);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Could not serialize broadcast for game {}", gameId, e);
             return;
         }
         int sent = 0;
         for (WebSocket peer : peers) {
             if (peer != exclude && peer.isOpen()) {
                 try {
-                    peer.send(json);
+                    sendText(peer, json);
                     sent++;
                 } catch (Exception ignored) {
                 }
             }
         }
-        log.info("broadcastToGame gameId={} -> peersSize={} sent={}", gameId, peers.size(), sent);
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameId = gameId;
+            event.messageType = obj instanceof Map ? String.valueOf(((Map<?, ?>) obj).get("type")) : null;
+            event.peers = peers.size();
+            event.sent = sent;
+            event.bytes = json.length();
+            event.commit();
+        }
+        log.debug("broadcastToGame gameId={} -> peersSize={} sent={}", gameId, peers.size(), sent);
+    }
+
+    // Replies of one batch, kept as the serialized frames so nothing is encoded twice.
+    private static final class BatchReplies {
+        final WebSocket conn;
+        private final List<JsonNode> ids = new ArrayList<>();
+        private final List<List<String>> frames = new ArrayList<>();
+
+        BatchReplies(WebSocket conn) {
+            this.conn = conn;
+        }
+
+        void begin(JsonNode id) {
+            ids.add(id);
+            frames.add(new ArrayList<>(2));
+        }
+
+        void add(String json) {
+            frames.get(frames.size() - 1).add(json);
+        }
+
+        String toJson(ObjectMapper mapper) {
+            StringBuilder sb = new StringBuilder(256).append("{\"type\":\"batch_result\",\"results\":[");
+            for (int i = 0; i < ids.size(); i++) {
+                if (i > 0) sb.append(',');
+                JsonNode id = ids.get(i);
+                String idJson;
+                try {
+                    idJson = id.isMissingNode() ? "null" : mapper.writeValueAsString(id);
+                } catch (Exception e) {
+                    idJson = "null";
+                }
+                sb.append("{\"id\":").append(idJson).append(",\"replies\":[");
+                sb.append(String.join(",", frames.get(i))).append("]}");
+            }
+            return sb.append("]}").toString();
+        }
+    }
+
+    private record SeatKey(String gameId, String playerId) {
     }
 
     // Generate unique 6-char ID.
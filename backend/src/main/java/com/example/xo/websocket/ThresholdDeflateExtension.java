@@ -0,0 +1,226 @@
+package com.example.xo.websocket;
+
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.exceptions.InvalidFrameException;
+import org.java_websocket.extensions.CompressionExtension;
+import org.java_websocket.extensions.ExtensionRequestData;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.ContinuousFrame;
+import org.java_websocket.framing.DataFrame;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.FramedataImpl1;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * permessage-deflate (rfc 7692) that leaves frames below a size threshold uncompressed and keeps
+ * one deflater plus one scratch buffer per connection.
+ *
+ * every connection's draft gets a copy of this extension whether or not the client negotiates it, so the
+ * zlib state is only allocated on first use and is ended in reset(), which the draft calls when the
+ * connection closes. the stock extension allocates both streams per copy and never ends them.
+ *
+ * the inbound frame cap only sees compressed wire bytes, so decoding enforces it again on the inflated
+ * message and closes with 1009 as soon as the output grows past it.
+ *
+ * the deflater is either kept across messages (context takeover, best ratio) or reset in place.
+ * encodeFrame is synchronized; with context takeover the caller must also serialize compress+write
+ * per connection, since frames must reach the peer in the order they went through the deflater.
+ */
+public class ThresholdDeflateExtension extends CompressionExtension {
+
+    private static final String NAME = "permessage-deflate";
+    private static final byte[] TAIL = {0x00, 0x00, (byte) 0xFF, (byte) 0xFF};
+
+    private final int threshold;
+    private final int level;
+    private final int maxMessageBytes;
+    private boolean serverNoContextTakeover;
+    private boolean clientNoContextTakeover;
+
+    // allocated lazily, ended on close
+    private Deflater deflater;
+    private Inflater inflater;
+    private byte[] scratch;
+    private boolean closed;
+    // the message being received was sent compressed (rsv1 on its first frame)
+    private boolean inflating;
+    private long inflated;
+    // the message being sent went out compressed; its continuations must follow suit
+    private boolean deflating;
+
+    public ThresholdDeflateExtension(int threshold, int level, boolean contextTakeover, int maxMessageBytes) {
+        this.threshold = threshold;
+        this.level = level;
+        this.maxMessageBytes = maxMessageBytes;
+        this.serverNoContextTakeover = !contextTakeover;
+    }
+
+    public static ThresholdDeflateExtension fromSettings(ServerSettings settings, int maxMessageBytes) {
+        return new ThresholdDeflateExtension(
+                settings.getInt("websocket.deflate.threshold", 256),
+                settings.getInt("websocket.deflate.level", Deflater.BEST_SPEED),
+                settings.getBoolean("websocket.deflate.context-takeover", true),
+                maxMessageBytes);
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public boolean isServerNoContextTakeover() {
+        return serverNoContextTakeover;
+    }
+
+    @Override
+    public IExtension copyInstance() {
+        return new ThresholdDeflateExtension(threshold, level, !serverNoContextTakeover, maxMessageBytes);
+    }
+
+    @Override
+    public boolean acceptProvidedExtensionAsServer(String inputExtension) {
+        for (String offer : inputExtension.split(",")) {
+            ExtensionRequestData data = ExtensionRequestData.parseExtensionRequest(offer);
+            if (!NAME.equalsIgnoreCase(data.getExtensionName())) continue;
+            Map<String, String> params = data.getExtensionParameters();
+            // the deflater always uses a 15-bit window; decline offers that need a smaller one
+            String bits = params.get("server_max_window_bits");
+            if (bits != null && !bits.isBlank() && !"15".equals(bits.trim())) continue;
+            // a client may ask the server to reset its context per message; honour it (rfc 7692 7.1.1.1)
+            if (params.containsKey("server_no_context_takeover")) serverNoContextTakeover = true;
+            if (params.containsKey("client_no_context_takeover")) clientNoContextTakeover = true;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean acceptProvidedExtensionAsClient(String inputExtension) {
+        return false; // server side only
+    }
+
+    @Override
+    public String getProvidedExtensionAsClient() {
+        return NAME;
+    }
+
+    @Override
+    public String getProvidedExtensionAsServer() {
+        // unlike the stock answer, only claim server_no_context_takeover when this side really resets
+        return NAME
+                + (serverNoContextTakeover ? "; server_no_context_takeover" : "")
+                + (clientNoContextTakeover ? "; client_no_context_takeover" : "");
+    }
+
+    @Override
+    public void isFrameValid(Framedata frame) throws InvalidDataException {
+        if (frame instanceof ContinuousFrame && (frame.isRSV1() || frame.isRSV2() || frame.isRSV3())) {
+            throw new InvalidFrameException("bad rsv RSV1: " + frame.isRSV1() + " RSV2: " + frame.isRSV2() + " RSV3: " + frame.isRSV3());
+        }
+        super.isFrameValid(frame);
+    }
+
+    @Override
+    public synchronized void decodeFrame(Framedata frame) throws InvalidDataException {
+        if (!(frame instanceof DataFrame)) return;
+        if (!(frame instanceof ContinuousFrame)) {
+            inflating = frame.isRSV1();
+            inflated = 0;
+        }
+        if (!inflating) return;
+        if (closed) throw new InvalidDataException(CloseFrame.POLICY_VALIDATION, "connection closed");
+
+        if (inflater == null) inflater = new Inflater(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            inflate(frame.getPayloadData(), out);
+            if (frame.isFin()) {
+                inflate(ByteBuffer.wrap(TAIL), out);
+                inflating = false;
+                if (clientNoContextTakeover) inflater.reset();
+            }
+        } catch (DataFormatException e) {
+            throw new InvalidDataException(CloseFrame.POLICY_VALIDATION, e.getMessage());
+        }
+        ((FramedataImpl1) frame).setPayload(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    @Override
+    public synchronized void encodeFrame(Framedata frame) {
+        if (!(frame instanceof DataFrame) || closed) return;
+        ByteBuffer payload = frame.getPayloadData();
+        if (!(frame instanceof ContinuousFrame)) {
+            deflating = payload.remaining() >= threshold;
+            if (deflating) ((DataFrame) frame).setRSV1(true);
+        }
+        if (!deflating) return;
+
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+            scratch = new byte[1024];
+        }
+        deflater.setInput(payload);
+        int len = 0;
+        for (;;) {
+            len += deflater.deflate(scratch, len, scratch.length - len, Deflater.SYNC_FLUSH);
+            if (len < scratch.length) break;
+            scratch = Arrays.copyOf(scratch, scratch.length * 2);
+        }
+
+        // a final frame drops the empty-block tail that sync flush appends
+        if (frame.isFin()) {
+            if (len >= TAIL.length && Arrays.equals(scratch, len - TAIL.length, len, TAIL, 0, TAIL.length)) {
+                len -= TAIL.length;
+            }
+            if (serverNoContextTakeover) deflater.reset();
+        }
+        ((FramedataImpl1) frame).setPayload(ByteBuffer.wrap(Arrays.copyOf(scratch, len)));
+    }
+
+    /**
+     * called by the draft when the connection closes: frees the native zlib streams.
+     */
+    @Override
+    public synchronized void reset() {
+        closed = true;
+        if (deflater != null) deflater.end();
+        if (inflater != null) inflater.end();
+        deflater = null;
+        inflater = null;
+        scratch = null;
+    }
+
+    @Override
+    public String toString() {
+        return "ThresholdDeflateExtension";
+    }
+
+    private void inflate(ByteBuffer input, ByteArrayOutputStream out) throws DataFormatException, InvalidDataException {
+        inflater.setInput(input);
+        byte[] buf = new byte[1024];
+        for (;;) {
+            int n = inflater.inflate(buf);
+            if (n > 0) {
+                inflated += n;
+                if (inflated > maxMessageBytes) {
+                    throw new InvalidDataException(CloseFrame.TOOBIG, "inflated message exceeds " + maxMessageBytes + " bytes");
+                }
+                out.write(buf, 0, n);
+            } else if (inflater.finished()) {
+                // a final deflate block ends the stream; whatever follows starts a new one
+                inflater.reset();
+                if (!input.hasRemaining()) return;
+                inflater.setInput(input);
+            } else {
+                return;
+            }
+        }
+    }
+}
@@ -2,9 +2,8 @@ package com.example.xo.websocket;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
 /**
@@ -12,51 +11,27 @@ import org.springframework.stereotype.Component;
  */
 @Component
 public class WebSocketServerStarter {
-    private static final Logger log = LoggerFactory.getLogger(WebSocketServerStarter.class);
 
-    @Value("${websocket.port:8081}")
-    private int port;
+    @Autowired
+    private Environment environment;
 
-    private StandaloneGameWebSocketServer server;
+    private GameServerLifecycle lifecycle;
 
     @PostConstruct
     public void start() {
-        // validate port
-        if (port < 1 || port > 65535) {
-            log.error("Invalid websocket.port value: {}. Port must be between 1 and 65535.", port);
-            throw new IllegalArgumentException("Invalid websocket.port: " + port);
-        }
-
-        try {
-            // instantiate with the integer port (standalonegamewebsocketserver wraps inet socket address)
-            server = new StandaloneGameWebSocketServer(port);
+        lifecycle = new GameServerLifecycle(new ServerSettings(environment::getProperty));
+        lifecycle.start();
+    }
 
-            // start server (typically non-blocking; it will start background threads)
-            server.start();
-            log.info("StandaloneGameWebSocketServer started and listening on port {}", port);
-        } catch (Exception e) {
-            log.error("Failed to start StandaloneGameWebSocketServer on port {}: {}", port, e.getMessage(), e);
-            // fail fast: if the websocket server is essential, fail application startup so user sees the error
-            throw new RuntimeException("Unable to start WebSocket server on port " + port, e);
-        }
+    /**
+     * running server instance, or null before startup / after a failed start.
+     */
+    public StandaloneGameWebSocketServer getServer() {
+        return lifecycle != null ? lifecycle.getServer() : null;
     }
 
     @PreDestroy
     public void stop() throws Exception {
-        if (server != null) {
-            try {
-                log.info("Stopping StandaloneGameWebSocketServer...");
-                // websocketserver#stop() may throw interruptedexception/ioexception depending on underlying implementation
-                server.stop();
-                log.info("StandaloneGameWebSocketServer stopped.");
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                log.warn("Interrupted while stopping WebSocket server: {}", ie.getMessage(), ie);
-            } catch (Exception e) {
-                log.error("Error while stopping StandaloneGameWebSocketServer: {}", e.getMessage(), e);
-            }
-        } else {
-            log.debug("No StandaloneGameWebSocketServer instance to stop.");
-        }
+        if (lifecycle != null) lifecycle.stop();
     }
 }
@@ -0,0 +1,156 @@
+package com.example.xo.bench;
+
+import com.example.xo.model.Game;
+import com.example.xo.model.Move;
+import com.example.xo.model.Player;
+import com.example.xo.websocket.ThresholdDeflateExtension;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.java_websocket.framing.TextFrame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * cpu-versus-bandwidth tradeoff of permessage-deflate for the frames this server actually sends.
+ *
+ * runs a rotating stream of sample frames through {@link ThresholdDeflateExtension#encodeFrame} (the exact server
+ * code path) with a per-connection context, with and without context takeover and at two levels,
+ * and prints wire size and nanoseconds per frame. lives in the test tree so neither jar ships it; run with:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt -Dmdep.includeScope=runtime
+ * java -cp target/classes:target/test-classes:$(cat target/classpath.txt) com.example.xo.bench.DeflateBenchmark [iterations]
+ * </pre>
+ */
+public final class DeflateBenchmark {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final int VARIANTS = 1024;
+    private static final String[] NAMES = {"Alice", "Bob", "Charlie", "Dana", "Eve", "Farid", "Grace", "Hiro", "Ines", "Jun"};
+    private static final String[] ERRORS = {"not player's turn", "cell occupied", "unknown game", "game_full", "missing gameId"};
+
+    private DeflateBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        // each sample is a rotation of variants (different rooms, names, boards and timestamps) so
+        // context takeover only gets credit for structure real traffic shares, not for exact repeats
+        Map<String, List<byte[]>> frames = new LinkedHashMap<>();
+        frames.put("error", variants(i -> Map.of("type", "error", "message", ERRORS[i % ERRORS.length])));
+        frames.put("move", variants(i -> {
+            Game game = sampleGame(i, 1 + i % 7);
+            return stateMessage("move", game, Map.of("playerId", "player-" + i, "x", i % 3, "y", (i / 3) % 3));
+        }));
+        frames.put("game_over", variants(i -> stateMessage("game_over", sampleGame(i, 5 + i % 4),
+                Map.of("winner", i % 3 == 0 ? "DRAW" : "X", "reason", i % 5 == 0 ? "forfeit" : "win"))));
+        frames.put("lobby_10", variants(i -> lobbyUpdate(i, 10)));
+        frames.put("lobby_100", variants(i -> lobbyUpdate(i, 100)));
+
+        System.out.printf("%-10s %7s | %-22s %7s %7s %9s%n", "frame", "raw_B", "mode", "wire_B", "ratio", "ns/frame");
+        for (Map.Entry<String, List<byte[]>> e : frames.entrySet()) {
+            List<byte[]> stream = e.getValue();
+            run(e.getKey(), stream, "uncompressed", null, iterations);
+            run(e.getKey(), stream, "level 1, takeover", new ThresholdDeflateExtension(0, 1, true, Integer.MAX_VALUE), iterations);
+            run(e.getKey(), stream, "level 6, takeover", new ThresholdDeflateExtension(0, 6, true, Integer.MAX_VALUE), iterations);
+            run(e.getKey(), stream, "level 1, no takeover", new ThresholdDeflateExtension(0, 1, false, Integer.MAX_VALUE), iterations);
+            run(e.getKey(), stream, "level 6, no takeover", new ThresholdDeflateExtension(0, 6, false, Integer.MAX_VALUE), iterations);
+        }
+    }
+
+    private static void run(String name, List<byte[]> stream, String mode, ThresholdDeflateExtension ext, int iterations) {
+        // one connection receiving the stream in order, as a client subscribed to a busy server would
+        int warmup = Math.min(iterations, 20_000);
+        for (int i = 0; i < warmup; i++) encode(stream.get(i % stream.size()), ext);
+        long raw = 0;
+        long wire = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            byte[] payload = stream.get(i % stream.size());
+            raw += payload.length;
+            wire += encode(payload, ext);
+        }
+        long nanos = System.nanoTime() - started;
+        System.out.printf("%-10s %7d | %-22s %7d %6.2fx %9d%n", name, raw / iterations, mode, wire / iterations,
+                (double) raw / wire, nanos / iterations);
+    }
+
+    private static int encode(byte[] raw, ThresholdDeflateExtension ext) {
+        TextFrame frame = new TextFrame();
+        frame.setPayload(ByteBuffer.wrap(raw));
+        if (ext != null) ext.encodeFrame(frame);
+        return frame.getPayloadData().remaining();
+    }
+
+    private static List<byte[]> variants(IntFunction<Object> message) throws Exception {
+        List<byte[]> out = new ArrayList<>(VARIANTS);
+        for (int i = 0; i < VARIANTS; i++) {
+            out.add(mapper.writeValueAsString(message.apply(i)).getBytes(StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    private static Game sampleGame(int seed, int moves) {
+        Random random = new Random(seed);
+        Game game = new Game(String.format("%06X", random.nextInt(1 << 24)));
+        game.addPlayer(new Player("player-" + random.nextInt(100_000), NAMES[random.nextInt(NAMES.length)]));
+        game.addPlayer(new Player("player-" + random.nextInt(100_000), NAMES[random.nextInt(NAMES.length)]));
+        List<Integer> cells = new ArrayList<>(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8));
+        Collections.shuffle(cells, random);
+        for (int i = 0; i < moves && game.getCurrentTurnPlayerId() != null; i++) {
+            int cell = cells.get(i);
+            game.applyMove(new Move(cell % 3, cell / 3, game.getCurrentTurnPlayerId(), System.currentTimeMillis()));
+        }
+        return game;
+    }
+
+    // same shape as the server's buildMessageWithState
+    private static Map<String, Object> stateMessage(String type, Game game, Map<String, Object> extras) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("type", type);
+        m.put("gameId", game.getId());
+        m.put("state", game.getState() != null ? game.getState().name() : null);
+        m.put("board", game.getBoardAsArray());
+        m.put("currentTurn", game.getCurrentTurnPlayerId());
+        Map<String, Object> players = new HashMap<>();
+        for (Player p : game.getPlayers().values()) {
+            Map<String, Object> pd = new HashMap<>();
+            pd.put("id", p.getId());
+            pd.put("name", p.getName());
+            pd.put("mark", p.getMark());
+            players.put(p.getId(), pd);
+        }
+        m.put("players", players);
+        m.putAll(extras);
+        return m;
+    }
+
+    private static Map<String, Object> lobbyUpdate(int seed, int rooms) {
+        Random random = new Random(seed);
+        List<Map<String, Object>> changes = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < rooms; i++) {
+            String id = String.format("%06X", random.nextInt(1 << 24));
+            Map<String, Object> room = new HashMap<>();
+            room.put("gameId", id);
+            room.put("createdAt", now + random.nextInt(60_000));
+            room.put("hostId", "player-" + random.nextInt(100_000));
+            room.put("hostName", NAMES[random.nextInt(NAMES.length)]);
+            Map<String, Object> change = new HashMap<>();
+            change.put("op", random.nextInt(4) == 0 ? "closed" : "open");
+            change.put("gameId", id);
+            change.put("room", room);
+            changes.add(change);
+        }
+        return Map.of("type", "lobby_update", "changes", changes);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.xo.rating;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LeaderboardTest {
+
+    private final Leaderboard board = new Leaderboard();
+    private final Map<String, Rating> model = new HashMap<>();
+
+    @Test
+    void rankMatchesSortedListAfterRandomUpdates() {
+        Random random = new Random(42);
+        for (int step = 0; step < 2_000; step++) {
+            // a small id space so most puts replace an existing row; the range runs past both clamps
+            String id = "p" + random.nextInt(150);
+            double rating = -300 + random.nextDouble() * (Leaderboard.MAX_POINTS + 600);
+            if (random.nextInt(4) == 0) rating = Math.floor(rating) + 0.5; // rounding boundary
+            put(id, rating);
+            if (step % 50 == 0) assertRanksMatch();
+        }
+        assertRanksMatch();
+        assertTopMatches();
+    }
+
+    @Test
+    void playerMovingSeveralTimesKeepsOneRow() {
+        put("a", 1200);
+        put("b", 1300);
+        put("c", 1100);
+        assertEquals(2, rankOf("a"));
+
+        put("a", 1400);
+        assertEquals(1, rankOf("a"));
+        assertEquals(2, rankOf("b"));
+        put("a", 1000);
+        assertEquals(3, rankOf("a"));
+        assertEquals(1, rankOf("b"));
+        put("a", 1250);
+        put("a", 1301);
+
+        assertEquals(3, board.size());
+        assertEquals(1, rankOf("a"));
+        assertEquals(2, rankOf("b"));
+        assertEquals(3, rankOf("c"));
+        assertEquals(List.of("a", "b", "c"), ids(board.top(10)));
+        assertRanksMatch();
+    }
+
+    @Test
+    void equalRoundedRatingsShareARank() {
+        put("a", 1500);
+        put("b", 1500.4);
+        put("c", 1499.6);
+        put("d", 1400);
+        put("e", 1600);
+
+        assertEquals(1, rankOf("e"));
+        assertEquals(2, rankOf("a"));
+        assertEquals(2, rankOf("b"));
+        assertEquals(2, rankOf("c"));
+        assertEquals(5, rankOf("d"));
+        // top-k still orders by the exact rating
+        assertEquals(List.of("e", "b", "a", "c", "d"), ids(board.top(10)));
+    }
+
+    @Test
+    void ratingsOutsideTheRangeAreClampedForRanking() {
+        put("low", -250);
+        put("zero", 0);
+        put("high", Leaderboard.MAX_POINTS + 900);
+        put("top", Leaderboard.MAX_POINTS - 1);
+        put("mid", 1500);
+
+        assertEquals(1, rankOf("high"));
+        assertEquals(1, rankOf("top"));
+        assertEquals(3, rankOf("mid"));
+        assertEquals(4, rankOf("zero"));
+        assertEquals(4, rankOf("low"));
+
+        // moving out of a clamped point frees it
+        put("high", 2000);
+        assertEquals(1, rankOf("top"));
+        assertEquals(2, rankOf("high"));
+        assertRanksMatch();
+    }
+
+    @Test
+    void topIsClampedToMaxTop() {
+        for (int i = 0; i < Leaderboard.MAX_TOP + 20; i++) put("p" + i, 1000 + i);
+        assertEquals(Leaderboard.MAX_TOP, board.top(1_000).size());
+        assertEquals(1, board.top(0).size());
+        assertEquals("p" + (Leaderboard.MAX_TOP + 19), board.top(1).get(0).playerId);
+    }
+
+    private void put(String id, double rating) {
+        Rating r = new Rating(id, null, rating, 0, 0, 0);
+        board.put(r);
+        model.put(id, r);
+    }
+
+    private int rankOf(String id) {
+        return board.rank(board.get(id));
+    }
+
+    // reference: 1 + players whose rating, rounded and clamped like the leaderboard does, is higher
+    private void assertRanksMatch() {
+        assertEquals(model.size(), board.size());
+        List<Long> points = new ArrayList<>();
+        for (Rating r : model.values()) points.add(point(r.rating));
+        points.sort(Comparator.reverseOrder());
+        for (Rating r : model.values()) {
+            int expected = points.indexOf(point(r.rating)) + 1;
+            assertEquals(expected, board.rank(board.get(r.playerId)), r.playerId + " at " + r.rating);
+        }
+    }
+
+    private void assertTopMatches() {
+        List<Rating> expected = new ArrayList<>(model.values());
+        expected.sort(Comparator.comparingDouble((Rating r) -> -r.rating).thenComparing(r -> r.playerId));
+        assertEquals(ids(expected.subList(0, Leaderboard.MAX_TOP)), ids(board.top(Leaderboard.MAX_TOP)));
+    }
+
+    private static long point(double rating) {
+        return Math.max(0, Math.min(Leaderboard.MAX_POINTS - 1, Math.round(rating)));
+    }
+
+    private static List<String> ids(List<Rating> rows) {
+        List<String> out = new ArrayList<>();
+        for (Rating r : rows) out.add(r.playerId);
+        return out;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.xo.snapshot;
+
+import com.example.xo.model.Game;
+import com.example.xo.model.GameState;
+import com.example.xo.model.Move;
+import com.example.xo.model.Player;
+import com.example.xo.model.TimeControl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripKeepsGamesAndRunningClock() throws IOException {
+        long start = System.currentTimeMillis() - 5_000;
+        Game timed = new Game("TIMED1");
+        timed.addPlayer(new Player("ax", "Alice", null, "s-ax"));
+        timed.addPlayer(new Player("bo", "Bob", null, "s-bo"));
+        timed.startClock(TimeControl.of(60_000, 2_000, 30_000), start);
+        // x spends 1s and gains the increment; o's turn has been running for ~4s since
+        timed.applyMove(new Move(0, 0, "ax", start + 1_000));
+
+        Game waiting = new Game("WAIT01");
+        waiting.addPlayer(new Player("cx", null));
+
+        Path file = dir.resolve("rooms.snapshot");
+        assertEquals(2, GameSnapshot.write(file, List.of(timed, waiting)));
+        assertFalse(Files.exists(dir.resolve("rooms.snapshot.tmp")));
+
+        List<Game> read = new ArrayList<>();
+        assertEquals(2, GameSnapshot.read(file, read::add));
+
+        Game t = read.get(0);
+        assertEquals("TIMED1", t.getId());
+        assertEquals(timed.getCreatedAt(), t.getCreatedAt());
+        assertEquals(GameState.IN_PROGRESS, t.getState());
+        assertArrayEquals(timed.getBoard(), t.getBoard());
+        assertEquals("bo", t.getCurrentTurnPlayerId());
+        assertEquals("ax", t.getPlayerX().getId());
+        assertEquals("bo", t.getPlayerO().getId());
+        assertEquals("X", t.getPlayers().get("ax").getMark());
+        assertEquals("Bob", t.getPlayers().get("bo").getName());
+        assertEquals("s-bo", t.getPlayers().get("bo").getSessionId());
+        assertEquals(timed.getMoves(), t.getMoves());
+
+        assertNotNull(t.getTimeControl());
+        assertEquals(60_000, t.getTimeControl().initialMillis);
+        assertEquals(2_000, t.getTimeControl().incrementMillis);
+        assertEquals(30_000, t.getTimeControl().moveMillis);
+        assertEquals(61_000, t.getRemainingX());
+        assertEquals(60_000, t.getRemainingO());
+        assertTrue(t.isClockRunning());
+        // the running turn keeps its elapsed time; time spent on disk is not charged
+        long now = System.currentTimeMillis();
+        long left = t.remainingMillis("O", now);
+        assertTrue(left <= 56_000 && left > 54_000, "remaining " + left);
+        assertEquals(timed.turnDeadline() - timed.getTurnStartedAt(), t.turnDeadline() - t.getTurnStartedAt());
+
+        Game w = read.get(1);
+        assertEquals("WAIT01", w.getId());
+        assertEquals(GameState.WAITING, w.getState());
+        assertEquals("cx", w.getPlayerX().getId());
+        assertNull(w.getPlayerO());
+        assertNull(w.getTimeControl());
+        assertFalse(w.isClockRunning());
+    }
+
+    @Test
+    void rejectsForeignAndTruncatedFiles() throws IOException {
+        Path foreign = dir.resolve("foreign");
+        Files.write(foreign, new byte[]{1, 2, 3, 4, 5, 6});
+        assertThrows(IOException.class, () -> GameSnapshot.read(foreign, g -> { }));
+
+        Path file = dir.resolve("rooms.snapshot");
+        Game game = new Game("TRUNC1");
+        game.addPlayer(new Player("ax", null));
+        GameSnapshot.write(file, List.of(game));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 2));
+        assertThrows(IOException.class, () -> GameSnapshot.read(file, g -> { }));
+    }
+
+    @Test
+    void gameStateOrderIsPartOfTheFormat() {
+        // states are stored by ordinal; reordering them would misread existing snapshots
+        assertEquals(List.of("WAITING", "IN_PROGRESS", "FINISHED", "DRAW", "X_WON", "O_WON"),
+                Arrays.stream(GameState.values()).map(Enum::name).toList());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.xo.timer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    // 1 ms ticks on 8 slots: any delay of 8 ms or more needs at least one extra lap (rounds > 0)
+    private final TimerWheel wheel = new TimerWheel("test-wheel", 1, TimeUnit.MILLISECONDS, 8);
+
+    @AfterEach
+    void stop() {
+        wheel.stop();
+    }
+
+    @Test
+    void firesInDeadlineOrderAcrossSeveralLaps() throws InterruptedException {
+        long[] delays = {3, 6, 8, 10, 16, 19, 26, 41};
+        List<Long> fired = Collections.synchronizedList(new ArrayList<>());
+        ConcurrentHashMap<Long, Long> lateness = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(delays.length);
+
+        long start = System.nanoTime();
+        // scheduled out of order so bucket position, not insertion order, decides; delays are at least
+        // 2 ms apart so crossing a tick boundary while scheduling cannot put two in one bucket
+        for (int i = delays.length - 1; i >= 0; i--) {
+            long delay = delays[i];
+            wheel.schedule(() -> {
+                lateness.put(delay, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - delay);
+                fired.add(delay);
+                done.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS), "fired " + fired);
+        List<Long> expected = new ArrayList<>();
+        for (long d : delays) expected.add(d);
+        assertEquals(expected, fired);
+        lateness.forEach((delay, late) -> assertTrue(late >= 0, delay + " ms timer fired " + -late + " ms early"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timersThatFallDueWhileTheWheelIsBusyFireOnceItCatchesUp() throws InterruptedException {
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        wheel.schedule(() -> {
+            blocking.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+        assertTrue(blocking.await(1, TimeUnit.SECONDS));
+
+        // all of these are overdue by the time the wheel gets to them, some by more than a lap
+        CountDownLatch done = new CountDownLatch(4);
+        for (long delay : new long[]{0, 1, 5, 12}) {
+            wheel.schedule(done::countDown, delay, TimeUnit.MILLISECONDS);
+        }
+        Thread.sleep(40);
+        assertEquals(4, done.getCount());
+        release.countDown();
+
+        assertTrue(done.await(1, TimeUnit.SECONDS), done.getCount() + " overdue timers never fired");
+    }
+
+    @Test
+    void cancelBeforeTransferNeverFires() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        TimerWheel.Timeout t = wheel.schedule(runs::incrementAndGet, 2, TimeUnit.MILLISECONDS);
+        assertTrue(t.cancel());
+        assertFalse(t.cancel());
+        assertTrue(t.isCancelled());
+        assertEquals(0, wheel.size());
+        assertEquals(0, t.remainingMillis());
+
+        Thread.sleep(30);
+        assertEquals(0, runs.get());
+        assertFalse(t.isExpired());
+    }
+
+    @Test
+    void cancelWhileWaitingOutLapsNeverFires() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch control = new CountDownLatch(1);
+        TimerWheel.Timeout t = wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        wheel.schedule(control::countDown, 45, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(10); // now in its bucket with laps to go
+        assertTrue(t.remainingMillis() > 0);
+        assertTrue(t.cancel());
+        assertEquals(1, wheel.size());
+
+        assertTrue(control.await(1, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelAfterFiringFails() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        TimerWheel.Timeout t = wheel.schedule(done::countDown, 1, TimeUnit.MILLISECONDS);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertTrue(t.isExpired());
+        assertFalse(t.cancel());
+        assertFalse(t.isCancelled());
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheWheel() throws InterruptedException {
+        wheel.schedule(() -> {
+            throw new IllegalStateException("boom");
+        }, 1, TimeUnit.MILLISECONDS);
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.schedule(done::countDown, 5, TimeUnit.MILLISECONDS);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void scheduleAfterStopIsRejected() {
+        wheel.stop();
+        assertThrows(IllegalStateException.class, () -> wheel.schedule(() -> { }, 1, TimeUnit.MILLISECONDS));
+    }
+}